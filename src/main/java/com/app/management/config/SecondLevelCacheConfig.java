@@ -0,0 +1,91 @@
+package com.app.management.config;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+// Region second-level cache Hibernate (JCache, provider Caffeine). Setiap region punya batas jumlah
+// entry sendiri dan statistik aktif; Hibernate diarahkan ke CacheManager ini sehingga region yang
+// tidak didaftarkan di sini gagal saat startup (missing_cache_strategy=fail)
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String PRODUCT = "product";
+    public static final String SUPPLIER = "supplier";
+    public static final String USER = "user";
+    public static final String SALES_INVOICE = "sales-invoice";
+    public static final String PURCHASE = "purchase";
+
+    @Value("${app.cache.product.max-size:10000}")
+    private long productMaxSize;
+
+    @Value("${app.cache.supplier.max-size:2000}")
+    private long supplierMaxSize;
+
+    @Value("${app.cache.user.max-size:1000}")
+    private long userMaxSize;
+
+    @Value("${app.cache.sales-invoice.max-size:20000}")
+    private long salesInvoiceMaxSize;
+
+    @Value("${app.cache.purchase.max-size:10000}")
+    private long purchaseMaxSize;
+
+    @Value("${app.cache.expire-after-write-minutes:60}")
+    private long expireAfterWriteMinutes;
+
+    // Kosong = CacheManager default JVM. Diisi nama unik jika beberapa application context berjalan
+    // di JVM yang sama (mis. test), supaya region-nya tidak saling berbagi entry
+    @Value("${app.cache.manager-uri:}")
+    private String managerUri;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+
+        CacheManager cacheManager = managerUri.isBlank()
+                ? provider.getCacheManager()
+                : provider.getCacheManager(URI.create(managerUri), provider.getDefaultClassLoader());
+
+        Map.of(
+                PRODUCT, productMaxSize,
+                SUPPLIER, supplierMaxSize,
+                USER, userMaxSize,
+                SALES_INVOICE, salesInvoiceMaxSize,
+                PURCHASE, purchaseMaxSize)
+                .forEach((region, maxSize) -> {
+                    if (cacheManager.getCache(region) == null) {
+                        cacheManager.createCache(region, regionConfiguration(maxSize));
+                    }
+                });
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private CaffeineConfiguration<Object, Object> regionConfiguration(long maxSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(expireAfterWriteMinutes)));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
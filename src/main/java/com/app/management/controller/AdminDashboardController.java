@@ -2,15 +2,23 @@ package com.app.management.controller;
 
 import com.app.management.model.user.Role;
 import com.app.management.model.user.User;
+import com.app.management.service.EntityCacheService;
+import com.app.management.service.EntityCacheService.RegionStats;
+import com.app.management.service.ReorderService;
 import com.app.management.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpSession;
 
+import java.util.List;
+
 @Controller
 @RequestMapping("/admin")
 public class AdminDashboardController {
@@ -18,9 +26,21 @@ public class AdminDashboardController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Value("${app.reorder.widget-size:5}")
+    private int lowStockWidgetSize;
+
     // Endpoint untuk menampilkan dashboard admin beserta data statistik dan user yang menunggu persetujuan
     @GetMapping("/dashboard")
-    public String dashboard(HttpSession session, Model model) {
+    public String dashboard(
+            @RequestParam(defaultValue = "0") int page,
+            HttpSession session,
+            Model model) {
 
         User admin = (User) session.getAttribute("user");
 
@@ -28,13 +48,15 @@ public class AdminDashboardController {
             return "redirect:/access/login";
         }
 
-        var pendingUsers = userService.getPendingUsers();
+        var pendingPage = userService.getPendingUserPage(page);
 
         model.addAttribute("user", admin);
-        model.addAttribute("users", pendingUsers);
+        model.addAttribute("users", pendingPage.getContent());
+        model.addAttribute("pendingPage", pendingPage);
         model.addAttribute("totalUsers", userService.getTotalUserCount());
-        model.addAttribute("pendingUsersCount", pendingUsers.size());
+        model.addAttribute("pendingUsersCount", pendingPage.getTotalElements());
         model.addAttribute("activeUsers", userService.getActiveUserCount());
+        model.addAttribute("lowStock", reorderService.getLowStock(lowStockWidgetSize));
 
         return "access/admin-dashboard";
     }
@@ -52,4 +74,18 @@ public class AdminDashboardController {
         userService.rejectUser(id);
         return "redirect:/admin/dashboard";
     }
+
+    // Endpoint JSON untuk melihat statistik hit / miss second-level cache per region (khusus admin)
+    @GetMapping("/cache-stats")
+    @ResponseBody
+    public ResponseEntity<List<RegionStats>> cacheStats(HttpSession session) {
+
+        User admin = (User) session.getAttribute("user");
+
+        if (admin == null || admin.getRole() != Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return ResponseEntity.ok(entityCacheService.getStats());
+    }
 }
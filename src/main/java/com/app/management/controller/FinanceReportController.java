@@ -4,15 +4,20 @@ import java.time.LocalDate;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.app.management.model.user.Role;
 import com.app.management.model.user.User;
 import com.app.management.service.FinanceReportService;
+import com.app.management.service.SalesRankingService;
 
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -24,11 +29,18 @@ public class FinanceReportController {
     @Autowired
     private FinanceReportService financeReportService;
 
+    @Autowired
+    private SalesRankingService salesRankingService;
+
+    @Value("${app.report.top-size:20}")
+    private int defaultTopSize;
+
     // Endpoint untuk menampilkan preview laporan keuangan berdasarkan rentang tanggal
     @GetMapping("/finance/preview")
     public String previewFinanceReport(
             @RequestParam(required = false) LocalDate startDate,
             @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) Integer top,
             Model model,
             HttpSession session) {
 
@@ -40,6 +52,7 @@ public class FinanceReportController {
 
         model.addAttribute("startDate", startDate);
         model.addAttribute("endDate", endDate);
+        model.addAttribute("top", top == null ? defaultTopSize : top);
 
         if (startDate != null && endDate != null) {
             try {
@@ -47,6 +60,8 @@ public class FinanceReportController {
                         financeReportService.getPreviewData(startDate, endDate);
 
                 model.addAllAttributes(previewData);
+                model.addAttribute("topSales", salesRankingService.getTopSales(
+                        startDate, endDate, top == null ? defaultTopSize : top));
                 model.addAttribute("previewReady", true);
 
             } catch (IllegalArgumentException e) {
@@ -57,6 +72,29 @@ public class FinanceReportController {
         return "report/finance-preview";
     }
 
+    // Endpoint JSON produk dan customer terlaris dalam rentang tanggal (khusus admin)
+    @GetMapping("/finance/top")
+    @ResponseBody
+    public ResponseEntity<SalesRankingService.TopSales> topSales(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam(required = false) Integer top,
+            HttpSession session) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            return ResponseEntity.ok(salesRankingService.getTopSales(
+                    startDate, endDate, top == null ? defaultTopSize : top));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Endpoint untuk menghasilkan dan mengunduh laporan keuangan dalam bentuk PDF
     @GetMapping("/finance/pdf")
     public void exportFinancePdf(
@@ -1,17 +1,41 @@
 package com.app.management.controller;
 
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
+import com.app.management.model.product.Product;
+import com.app.management.model.sales.Customer;
 import com.app.management.model.sales.InvoiceDetails;
 import com.app.management.model.sales.SalesInvoice;
+import com.app.management.model.sales.SalesStatus;
 import com.app.management.model.user.User;
+import com.app.management.service.CustomerService;
+import com.app.management.service.DocumentPdfService;
+import com.app.management.service.InvoiceDraftService;
 import com.app.management.service.InvoiceService;
+import com.app.management.service.InvoiceService.BulkCompleteResult;
 import com.app.management.service.ProductService;
+import com.app.management.service.RenderedPageCache;
+import com.app.management.service.StockReservationService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 @Controller
@@ -24,6 +48,38 @@ public class InvoiceController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private DocumentPdfService documentPdfService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private InvoiceDraftService invoiceDraftService;
+
+    @Autowired
+    private RenderedPageCache renderedPageCache;
+
+    public record DraftHeaderRequest(String customerName, String invoiceNumber, BigDecimal vatPercentage) {
+    }
+
+    public record DraftLineRequest(Long productId, String productCode, Integer quantity) {
+    }
+
+    // Daftar produk untuk form invoice beserta stok tersedia (stok dikurangi reservasi aktif)
+    private void addProductOptions(Model model, User user) {
+        List<Product> products = productService.getActiveProducts(user);
+
+        Map<Long, Integer> availability = new HashMap<>();
+        products.forEach(p -> availability.put(p.getId(), stockReservationService.getAvailableStock(p)));
+
+        model.addAttribute("products", products);
+        model.addAttribute("availability", availability);
+    }
+
     private String getDashboardUrl(String role) {
         if ("admin".equalsIgnoreCase(role)) {
             return "/admin/dashboard";
@@ -77,8 +133,7 @@ public class InvoiceController {
         invoice.addInvoiceDetail(new InvoiceDetails());
 
         model.addAttribute("salesInvoice", invoice);
-        model.addAttribute("products",
-                productService.getActiveProducts(user));
+        addProductOptions(model, user);
         model.addAttribute("userRole", role);
         model.addAttribute("dashboardUrl", getDashboardUrl(role));
         model.addAttribute("backUrl", "/sales/list?role=" + role);
@@ -106,8 +161,7 @@ public class InvoiceController {
                     || salesInvoice.getInvoiceDetails().isEmpty()) {
 
                 model.addAttribute("error", "Minimal 1 produk harus dipilih");
-                model.addAttribute("products",
-                        productService.getActiveProducts(user));
+                addProductOptions(model, user);
                 model.addAttribute("userRole", role);
                 model.addAttribute("dashboardUrl", getDashboardUrl(role));
                 model.addAttribute("backUrl", "/sales/list?role=" + role);
@@ -124,8 +178,7 @@ public class InvoiceController {
 
         } catch (Exception e) {
             model.addAttribute("error", "Gagal: " + e.getMessage());
-            model.addAttribute("products",
-                    productService.getActiveProducts(user));
+            addProductOptions(model, user);
             model.addAttribute("userRole", role);
             model.addAttribute("dashboardUrl", getDashboardUrl(role));
             model.addAttribute("backUrl", "/sales/list?role=" + role);
@@ -134,12 +187,15 @@ public class InvoiceController {
         }
     }
 
-    // Endpoint untuk menampilkan detail satu invoice penjualan
+    // Endpoint untuk menampilkan detail satu invoice penjualan. Invoice yang sudah COMPLETED /
+    // CANCELLED tidak berubah lagi, jadi hasil render-nya diambil dari cache halaman (dengan ETag)
     @GetMapping("/view/{id}")
-    public String viewInvoice(
+    public Object viewInvoice(
             @PathVariable Long id,
             @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
             HttpSession session,
+            HttpServletRequest request,
+            HttpServletResponse response,
             Model model) {
 
         User user = (User) session.getAttribute("user");
@@ -158,9 +214,74 @@ public class InvoiceController {
         model.addAttribute("dashboardUrl", getDashboardUrl(role));
         model.addAttribute("backUrl", "/sales/list?role=" + role);
 
+        if (isFinal(invoice.getSalesStatus()) && isCacheableRole(role)
+                && RequestContextUtils.getInputFlashMap(request) == null) {
+
+            Long customerId = invoice.getCustomer() == null ? null : invoice.getCustomer().getId();
+
+            return renderedPageCache.render(
+                    "invoice-" + id + "-" + invoice.getSalesStatus() + "-" + customerId + "-" + role,
+                    "sales/view-invoice",
+                    model.asMap(),
+                    request,
+                    response);
+        }
+
         return "sales/view-invoice";
     }
 
+    private boolean isFinal(SalesStatus status) {
+        return status == SalesStatus.COMPLETED || status == SalesStatus.CANCELLED;
+    }
+
+    // Role dari query string ditampilkan di halaman; hanya nilai yang dikenal yang di-cache
+    private boolean isCacheableRole(String role) {
+        return "admin".equals(role) || "staff".equals(role);
+    }
+
+    // Endpoint untuk mencetak invoice penjualan dalam bentuk PDF
+    @GetMapping("/pdf/{id}")
+    public ResponseEntity<byte[]> invoicePdf(
+            @PathVariable Long id,
+            HttpSession session) {
+
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create("/access/login"))
+                    .build();
+        }
+
+        return pdfResponse(() -> documentPdfService.renderInvoicePdf(id), "invoice-" + id + ".pdf");
+    }
+
+    // Endpoint untuk mencetak struk penjualan (kertas 80mm)
+    @GetMapping("/receipt/{id}")
+    public ResponseEntity<byte[]> receiptPdf(
+            @PathVariable Long id,
+            HttpSession session) {
+
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create("/access/login"))
+                    .build();
+        }
+
+        return pdfResponse(() -> documentPdfService.renderReceiptPdf(id), "receipt-" + id + ".pdf");
+    }
+
+    private ResponseEntity<byte[]> pdfResponse(Supplier<byte[]> renderer, String filename) {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + filename)
+                    .body(renderer.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     // Endpoint untuk menyelesaikan proses invoice penjualan
     @GetMapping("/complete/{id}")
     public String completeInvoice(
@@ -180,6 +301,41 @@ public class InvoiceController {
         return "redirect:/sales/list?role=" + role;
     }
 
+    // Endpoint untuk menyelesaikan beberapa invoice terpilih sekaligus; invoice yang gagal
+    // dilaporkan tanpa membatalkan invoice lain
+    @PostMapping("/complete-bulk")
+    public String completeInvoices(
+            @RequestParam(value = "ids", required = false) List<Long> ids,
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            HttpSession session,
+            RedirectAttributes redirectAttributes) {
+
+        if (session.getAttribute("user") == null) {
+            return "redirect:/access/login";
+        }
+
+        try {
+            BulkCompleteResult result = invoiceService.completeSalesBulk(ids);
+
+            if (!result.completed().isEmpty()) {
+                redirectAttributes.addFlashAttribute(
+                        "success", result.completed().size() + " invoice berhasil diselesaikan!");
+            }
+
+            if (!result.rejected().isEmpty()) {
+                redirectAttributes.addFlashAttribute(
+                        "error", "Ditolak: " + result.rejected().entrySet().stream()
+                                .map(e -> e.getKey() + " (" + e.getValue() + ")")
+                                .collect(Collectors.joining(", ")));
+            }
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute(
+                    "error", "Gagal: " + e.getMessage());
+        }
+
+        return "redirect:/sales/list?role=" + role;
+    }
+
     // Endpoint untuk membatalkan invoice penjualan yang sudah dibuat
     @GetMapping("/cancel/{id}")
     public String cancelInvoice(
@@ -198,4 +354,157 @@ public class InvoiceController {
 
         return "redirect:/sales/list?role=" + role;
     }
+
+    // Endpoint untuk menampilkan total dan riwayat invoice satu customer
+    @GetMapping("/customer/{id}")
+    public String customerStatement(
+            @PathVariable Long id,
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            HttpSession session,
+            Model model) {
+
+        if (session.getAttribute("user") == null) {
+            return "redirect:/access/login";
+        }
+
+        try {
+            model.addAttribute("statement", customerService.getStatement(id));
+        } catch (IllegalArgumentException e) {
+            return "redirect:/sales/list?role=" + role;
+        }
+
+        model.addAttribute("userRole", role);
+        model.addAttribute("dashboardUrl", getDashboardUrl(role));
+        model.addAttribute("backUrl", "/sales/list?role=" + role);
+
+        return "sales/customer-statement";
+    }
+
+    // Endpoint JSON untuk mencari customer berdasarkan nama (huruf besar / spasi diabaikan)
+    @GetMapping("/customer/lookup")
+    @ResponseBody
+    public ResponseEntity<Customer> lookupCustomer(
+            @RequestParam String name,
+            HttpSession session) {
+
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return customerService.findByName(name)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Endpoint untuk menampilkan form invoice berbasis draft (baris diubah satu per satu lewat JSON)
+    @GetMapping("/draft/new")
+    public String showDraftForm(
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            HttpSession session,
+            Model model) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null) {
+            return "redirect:/access/login";
+        }
+
+        model.addAttribute("drafts", invoiceDraftService.getAll());
+        addProductOptions(model, user);
+        model.addAttribute("userRole", role);
+        model.addAttribute("dashboardUrl", getDashboardUrl(role));
+        model.addAttribute("backUrl", "/sales/list?role=" + role);
+
+        return "sales/draft-invoice";
+    }
+
+    // Endpoint JSON untuk membuat draft invoice baru di session
+    @PostMapping("/draft")
+    @ResponseBody
+    public ResponseEntity<?> createDraft(HttpSession session) {
+        return draftResponse(session, () -> invoiceDraftService.create());
+    }
+
+    // Endpoint JSON untuk mengambil isi lengkap draft
+    @GetMapping("/draft/{id}")
+    @ResponseBody
+    public ResponseEntity<?> getDraft(@PathVariable String id, HttpSession session) {
+        return draftResponse(session, () -> invoiceDraftService.get(id));
+    }
+
+    // Endpoint JSON untuk mengubah customer / no. invoice / pajak draft, hanya mengembalikan total
+    @PutMapping("/draft/{id}")
+    @ResponseBody
+    public ResponseEntity<?> updateDraftHeader(
+            @PathVariable String id,
+            @RequestBody DraftHeaderRequest request,
+            HttpSession session) {
+
+        return draftResponse(session, () -> invoiceDraftService.updateHeader(
+                id, request.customerName(), request.invoiceNumber(), request.vatPercentage()));
+    }
+
+    // Endpoint JSON untuk menambah produk ke draft (id produk atau kode hasil scan)
+    @PostMapping("/draft/{id}/lines")
+    @ResponseBody
+    public ResponseEntity<?> addDraftLine(
+            @PathVariable String id,
+            @RequestBody DraftLineRequest request,
+            HttpSession session) {
+
+        return draftResponse(session, () -> invoiceDraftService.addLine(
+                id, request.productId(), request.productCode(), request.quantity()));
+    }
+
+    // Endpoint JSON untuk mengubah quantity satu baris draft
+    @PutMapping("/draft/{id}/lines/{productId}")
+    @ResponseBody
+    public ResponseEntity<?> updateDraftLine(
+            @PathVariable String id,
+            @PathVariable Long productId,
+            @RequestBody DraftLineRequest request,
+            HttpSession session) {
+
+        return draftResponse(session, () -> invoiceDraftService.updateLine(id, productId, request.quantity()));
+    }
+
+    // Endpoint JSON untuk menghapus satu baris draft
+    @DeleteMapping("/draft/{id}/lines/{productId}")
+    @ResponseBody
+    public ResponseEntity<?> removeDraftLine(
+            @PathVariable String id,
+            @PathVariable Long productId,
+            HttpSession session) {
+
+        return draftResponse(session, () -> invoiceDraftService.removeLine(id, productId));
+    }
+
+    // Endpoint JSON untuk mengubah draft menjadi invoice berstatus CREATED
+    @PostMapping("/draft/{id}/finalize")
+    @ResponseBody
+    public ResponseEntity<?> finalizeDraft(@PathVariable String id, HttpSession session) {
+        return draftResponse(session, () -> Map.of("invoiceId", invoiceDraftService.finalizeDraft(id).getId()));
+    }
+
+    // Endpoint JSON untuk menghapus draft tanpa membuat invoice
+    @DeleteMapping("/draft/{id}")
+    @ResponseBody
+    public ResponseEntity<?> discardDraft(@PathVariable String id, HttpSession session) {
+        return draftResponse(session, () -> {
+            invoiceDraftService.discard(id);
+            return Map.of("id", id);
+        });
+    }
+
+    private ResponseEntity<?> draftResponse(HttpSession session, Supplier<?> action) {
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            return ResponseEntity.ok(action.get());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
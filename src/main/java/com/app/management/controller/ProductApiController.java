@@ -0,0 +1,34 @@
+package com.app.management.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.app.management.model.product.ProductCodeView;
+import com.app.management.service.ProductCodeIndex;
+
+import jakarta.servlet.http.HttpSession;
+
+@RestController
+@RequestMapping("/api/products")
+public class ProductApiController {
+
+    @Autowired
+    private ProductCodeIndex productCodeIndex;
+
+    // Endpoint untuk mencari produk aktif dari kode hasil scan barcode
+    @GetMapping("/by-code/{code}")
+    public ResponseEntity<ProductCodeView> findByCode(
+            @PathVariable String code,
+            HttpSession session) {
+
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return productCodeIndex.find(code)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,5 +1,6 @@
 package com.app.management.controller;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,8 +12,13 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.app.management.model.product.Product;
 import com.app.management.model.product.ProductStatus;
+import com.app.management.model.product.RepriceMode;
+import com.app.management.model.user.Role;
 import com.app.management.model.user.User;
+import com.app.management.service.ProductRepricingService;
+import com.app.management.service.ProductRepricingService.RepriceRequest;
 import com.app.management.service.ProductService;
+import com.app.management.service.StockReconcileService;
 
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
@@ -24,6 +30,12 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductRepricingService productRepricingService;
+
+    @Autowired
+    private StockReconcileService stockReconcileService;
+
     private String getDashboardUrl(String role) {
         if ("admin".equalsIgnoreCase(role)) {
             return "/admin/dashboard";
@@ -219,4 +231,92 @@ public class ProductController {
 
         return "redirect:/product/manage";
     }
+
+    // Endpoint untuk menampilkan form perubahan harga massal (khusus admin)
+    @GetMapping("/reprice")
+    public String repriceForm(HttpSession session, Model model) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return "redirect:/access/login";
+        }
+
+        model.addAttribute("mode", RepriceMode.PERCENT);
+        return "product/reprice-product";
+    }
+
+    // Endpoint untuk preview (dryRun) atau menjalankan perubahan harga massal
+    @PostMapping("/reprice")
+    public String reprice(
+            @RequestParam(required = false) ProductStatus status,
+            @RequestParam(required = false) String codePrefix,
+            @RequestParam(required = false) String nameContains,
+            @RequestParam RepriceMode mode,
+            @RequestParam(required = false) BigDecimal value,
+            @RequestParam(defaultValue = "true") boolean dryRun,
+            HttpSession session,
+            Model model) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return "redirect:/access/login";
+        }
+
+        RepriceRequest request = new RepriceRequest(status, codePrefix, nameContains, mode, value);
+
+        try {
+            model.addAttribute("result", dryRun
+                    ? productRepricingService.preview(request)
+                    : productRepricingService.apply(request));
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+        }
+
+        model.addAttribute("status", status);
+        model.addAttribute("codePrefix", codePrefix);
+        model.addAttribute("nameContains", nameContains);
+        model.addAttribute("mode", mode);
+        model.addAttribute("value", value);
+
+        return "product/reprice-product";
+    }
+
+    // Endpoint untuk menampilkan laporan rekonsiliasi stok terakhir (khusus admin)
+    @GetMapping("/reconcile")
+    public String reconcileReport(HttpSession session, Model model) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return "redirect:/access/login";
+        }
+
+        model.addAttribute("report", stockReconcileService.getLastReport());
+        model.addAttribute("correctionAvailable", stockReconcileService.isCorrectionAvailable());
+        return "product/stock-reconcile";
+    }
+
+    // Endpoint untuk menjalankan rekonsiliasi stok sekarang, dengan atau tanpa koreksi
+    @PostMapping("/reconcile")
+    public String reconcile(
+            @RequestParam(defaultValue = "false") boolean correct,
+            HttpSession session,
+            RedirectAttributes redirectAttributes) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return "redirect:/access/login";
+        }
+
+        try {
+            stockReconcileService.reconcile(correct);
+        } catch (IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+        }
+
+        return "redirect:/product/reconcile";
+    }
 }
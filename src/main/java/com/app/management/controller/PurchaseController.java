@@ -1,22 +1,42 @@
 package com.app.management.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
 import com.app.management.model.purchase.Purchase;
 import com.app.management.model.purchase.PurchaseDetails;
+import com.app.management.model.purchase.PurchaseListView;
 import com.app.management.model.purchase.PurchaseStatus;
 import com.app.management.model.user.User;
+import com.app.management.service.DocumentPdfService;
+import com.app.management.service.PurchaseImportService;
+import com.app.management.service.PurchaseImportService.ImportResult;
 import com.app.management.service.PurchaseService;
+import com.app.management.service.ReorderService;
+import com.app.management.service.RenderedPageCache;
+import com.app.management.service.SupplierPriceCatalog;
 import com.app.management.service.SupplierService;
 import com.app.management.service.ProductService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 @Controller
@@ -32,6 +52,18 @@ public class PurchaseController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private DocumentPdfService documentPdfService;
+
+    @Autowired
+    private PurchaseImportService purchaseImportService;
+
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private RenderedPageCache renderedPageCache;
+
     private String getDashboardUrl(String role) {
         if ("admin".equalsIgnoreCase(role)) {
             return "/admin/dashboard";
@@ -46,6 +78,7 @@ public class PurchaseController {
             @RequestParam String role,
             @RequestParam(required = false) String keyword,
             @RequestParam(defaultValue = "date_desc") String sort,
+            @RequestParam(defaultValue = "0") int page,
             Model model) {
 
         String dashboardUrl;
@@ -55,10 +88,11 @@ public class PurchaseController {
             dashboardUrl = "/staff/dashboard";
         }
 
-        List<Purchase> purchases =
-                purchaseService.searchAndSort(keyword, sort);
+        Page<PurchaseListView> purchases =
+                purchaseService.searchAndSort(keyword, sort, page);
 
-        model.addAttribute("purchases", purchases);
+        model.addAttribute("purchases", purchases.getContent());
+        model.addAttribute("page", purchases);
         model.addAttribute("keyword", keyword);
         model.addAttribute("sort", sort);
         model.addAttribute("userRole", role);
@@ -84,7 +118,7 @@ public class PurchaseController {
 
         model.addAttribute("purchase", purchase);
         model.addAttribute("suppliers",
-                supplierService.getAllSuppliers());
+                supplierService.getSupplierOptions());
         model.addAttribute("products",
                 productService.getActiveProducts(user));
         model.addAttribute("userRole", role);
@@ -93,6 +127,20 @@ public class PurchaseController {
         return "purchase/add-purchase";
     }
 
+    // Endpoint JSON harga beli & quantity terakhir per produk untuk supplier yang dipilih di form
+    @GetMapping("/price-catalog")
+    @ResponseBody
+    public ResponseEntity<Map<Long, SupplierPriceCatalog.PriceHint>> priceCatalog(
+            @RequestParam Long supplierId,
+            HttpSession session) {
+
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return ResponseEntity.ok(purchaseService.getPriceHints(supplierId));
+    }
+
     // Endpoint untuk menyimpan transaksi pembelian beserta detail produknya
     @PostMapping("/add")
     public String savePurchase(
@@ -130,16 +178,8 @@ public class PurchaseController {
                     continue;
                 }
 
-                if (detail.getQuantity() == null
-                        || detail.getQuantity() <= 0) {
-                    throw new IllegalArgumentException("Quantity harus lebih dari 0");
-                }
-
-                if (detail.getUnitPurchasePrice() == null
-                        || detail.getUnitPurchasePrice()
-                                .compareTo(BigDecimal.ZERO) <= 0) {
-                    throw new IllegalArgumentException("Harga beli harus lebih dari 0");
-                }
+                purchaseService.validateLine(
+                        detail.getQuantity(), detail.getUnitPurchasePrice());
 
                 detail.setPurchase(purchase);
 
@@ -168,7 +208,7 @@ public class PurchaseController {
         } catch (Exception e) {
             model.addAttribute("error", "Gagal menyimpan: " + e.getMessage());
             model.addAttribute("suppliers",
-                    supplierService.getAllSuppliers());
+                    supplierService.getSupplierOptions());
             model.addAttribute("products",
                     productService.getActiveProducts(user));
             model.addAttribute("userRole", role);
@@ -179,11 +219,79 @@ public class PurchaseController {
         }
     }
 
-    // Endpoint untuk menampilkan detail transaksi pembelian
+    // Endpoint untuk menampilkan form import surat jalan (CSV)
+    @GetMapping("/import")
+    public String importPurchaseForm(
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            HttpSession session,
+            Model model) {
+
+        if (session.getAttribute("user") == null) {
+            return "redirect:/access/login";
+        }
+
+        model.addAttribute("suppliers",
+                supplierService.getSupplierOptions());
+        model.addAttribute("userRole", role);
+        model.addAttribute("dashboardUrl", getDashboardUrl(role));
+
+        return "purchase/import-purchase";
+    }
+
+    // Endpoint untuk mengimpor surat jalan (CSV) menjadi pembelian berstatus CREATED
+    @PostMapping("/import")
+    public String importPurchase(
+            @RequestParam(value = "supplierId", required = false) Long supplierId,
+            @RequestParam(value = "referenceNumber", required = false) String referenceNumber,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            HttpSession session,
+            RedirectAttributes redirectAttributes,
+            Model model) {
+
+        if (session.getAttribute("user") == null) {
+            return "redirect:/access/login";
+        }
+
+        try (InputStream in = file.getInputStream()) {
+
+            ImportResult result =
+                    purchaseImportService.importCsv(supplierId, referenceNumber, in);
+
+            if (result.isSuccess()) {
+                redirectAttributes.addFlashAttribute(
+                        "successMessage",
+                        result.lineCount() + " baris diimpor ke pembelian "
+                                + result.purchase().getReferenceNumber());
+
+                return "redirect:/purchase/list?role=" + role;
+            }
+
+            model.addAttribute("error", "Import gagal, tidak ada data yang disimpan");
+            model.addAttribute("importErrors", result.errors());
+
+        } catch (IllegalArgumentException | IOException e) {
+            model.addAttribute("error", "Import gagal: " + e.getMessage());
+        }
+
+        model.addAttribute("suppliers",
+                supplierService.getSupplierOptions());
+        model.addAttribute("supplierId", supplierId);
+        model.addAttribute("referenceNumber", referenceNumber);
+        model.addAttribute("userRole", role);
+        model.addAttribute("dashboardUrl", getDashboardUrl(role));
+
+        return "purchase/import-purchase";
+    }
+
+    // Endpoint untuk menampilkan detail transaksi pembelian. Purchase yang sudah COMPLETED /
+    // CANCELLED diambil dari cache halaman (dengan ETag) selama tidak ada pesan flash
     @GetMapping("/view/{id}")
-    public String viewPurchase(
+    public Object viewPurchase(
             @PathVariable Long id,
             @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            HttpServletRequest request,
+            HttpServletResponse response,
             Model model) {
 
         Purchase purchase = purchaseService.getPurchaseByid(id);
@@ -197,9 +305,45 @@ public class PurchaseController {
         model.addAttribute("dashboardUrl", getDashboardUrl(role));
         model.addAttribute("backUrl", "/purchase/list?role=" + role);
 
+        if (purchase.getStatus() != PurchaseStatus.CREATED
+                && ("admin".equals(role) || "staff".equals(role))
+                && RequestContextUtils.getInputFlashMap(request) == null) {
+
+            return renderedPageCache.render(
+                    "purchase-" + id + "-" + purchase.getStatus() + "-" + role,
+                    "purchase/purchase-detail",
+                    model.asMap(),
+                    request,
+                    response);
+        }
+
         return "purchase/purchase-detail";
     }
 
+    // Endpoint untuk mencetak purchase order dalam bentuk PDF
+    @GetMapping("/pdf/{id}")
+    public ResponseEntity<byte[]> purchasePdf(
+            @PathVariable Long id,
+            HttpSession session) {
+
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create("/access/login"))
+                    .build();
+        }
+
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=purchase-" + id + ".pdf")
+                    .body(documentPdfService.renderPurchasePdf(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
     // Endpoint untuk menyelesaikan transaksi pembelian
     @GetMapping("/complete/{id}")
     public String completePurchase(
@@ -220,6 +364,25 @@ public class PurchaseController {
         return "redirect:/purchase/list?role=" + role;
     }
 
+    // Endpoint untuk menyelesaikan banyak pembelian sekaligus (penerimaan barang massal)
+    @PostMapping("/complete-bulk")
+    public String completePurchases(
+            @RequestParam(value = "ids", required = false) List<Long> ids,
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            RedirectAttributes redirectAttributes) {
+
+        try {
+            int completed = purchaseService.completePurchases(ids);
+            redirectAttributes.addFlashAttribute(
+                    "successMessage", completed + " pembelian selesai!");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute(
+                    "errorMessage", "Gagal: " + e.getMessage());
+        }
+
+        return "redirect:/purchase/list?role=" + role;
+    }
+
     // Endpoint untuk membatalkan transaksi pembelian yang belum selesai
     @GetMapping("/cancel/{id}")
     public String cancelPurchase(
@@ -239,4 +402,41 @@ public class PurchaseController {
 
         return "redirect:/purchase/list?role=" + role;
     }
+
+    // Endpoint untuk menampilkan produk stok menipis, dikelompokkan per supplier sebagai usulan purchase
+    @GetMapping("/reorder")
+    public String reorderSuggestions(
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            HttpSession session,
+            Model model) {
+
+        if (session.getAttribute("user") == null) {
+            return "redirect:/access/login";
+        }
+
+        model.addAttribute("suggestions", reorderService.getSuggestions());
+        model.addAttribute("userRole", role);
+        model.addAttribute("dashboardUrl", getDashboardUrl(role));
+
+        return "purchase/reorder-purchase";
+    }
+
+    // Endpoint untuk membuat draft purchase dari usulan stok menipis satu supplier
+    @PostMapping("/reorder/draft")
+    public String createReorderDraft(
+            @RequestParam Long supplierId,
+            @RequestParam(value = "role", required = false, defaultValue = "staff") String role,
+            RedirectAttributes redirectAttributes) {
+
+        try {
+            Purchase purchase = purchaseService.createReorderDraft(supplierId);
+            redirectAttributes.addFlashAttribute(
+                    "successMessage", "Draft pembelian " + purchase.getReferenceNumber() + " dibuat");
+            return "redirect:/purchase/view/" + purchase.getId() + "?role=" + role;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute(
+                    "errorMessage", "Gagal: " + e.getMessage());
+            return "redirect:/purchase/reorder?role=" + role;
+        }
+    }
 }
@@ -1,14 +1,28 @@
 package com.app.management.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import com.app.management.service.ReorderService;
+import com.app.management.service.StaffKpiService;
+
 @Controller
 @RequestMapping("/staff")
 public class StaffDashboardController {
 
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private StaffKpiService staffKpiService;
+
+    @Value("${app.reorder.widget-size:5}")
+    private int lowStockWidgetSize;
+
     // Endpoint untuk menampilkan dashboard staff beserta informasi dasar dan navigasi
     @GetMapping("/dashboard")
     public String staffDashboard(Model model) {
@@ -18,6 +32,8 @@ public class StaffDashboardController {
         model.addAttribute("userRole", "staff");
         model.addAttribute("dashboardUrl", "/staff/dashboard");
         model.addAttribute("backUrl", "/main/back");
+        model.addAttribute("lowStock", reorderService.getLowStock(lowStockWidgetSize));
+        model.addAttribute("kpi", staffKpiService.getKpi());
 
         return "access/staff-dashboard";
     }
@@ -0,0 +1,139 @@
+package com.app.management.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import com.app.management.model.user.Role;
+import com.app.management.model.user.User;
+import com.app.management.service.StockTakeService;
+import com.app.management.service.StockTakeService.UploadResult;
+
+import jakarta.servlet.http.HttpSession;
+
+@Controller
+@RequestMapping("/product/stock-take")
+public class StockTakeController {
+
+    @Autowired
+    private StockTakeService stockTakeService;
+
+    private boolean isAdmin(HttpSession session) {
+        User user = (User) session.getAttribute("user");
+        return user != null && user.getRole() == Role.ADMIN;
+    }
+
+    // Endpoint untuk menampilkan daftar sesi stock opname dan form upload hasil hitung (khusus admin)
+    @GetMapping
+    public String listStockTake(HttpSession session, Model model) {
+
+        if (!isAdmin(session)) {
+            return "redirect:/access/login";
+        }
+
+        model.addAttribute("stockTakes", stockTakeService.getRecent());
+        return "product/stock-take";
+    }
+
+    // Endpoint untuk mengupload hasil hitung (CSV / scanner) menjadi sesi stock opname baru
+    @PostMapping("/upload")
+    public String uploadStockTake(
+            @RequestParam(value = "note", required = false) String note,
+            @RequestParam("file") MultipartFile file,
+            HttpSession session,
+            Model model) {
+
+        if (!isAdmin(session)) {
+            return "redirect:/access/login";
+        }
+
+        try (InputStream in = file.getInputStream()) {
+
+            UploadResult result = stockTakeService.upload(note, in);
+
+            if (result.isSuccess()) {
+                return "redirect:/product/stock-take/" + result.stockTake().getId();
+            }
+
+            model.addAttribute("error", "Upload gagal, tidak ada data yang disimpan");
+            model.addAttribute("uploadErrors", result.errors());
+
+        } catch (IllegalArgumentException | IOException e) {
+            model.addAttribute("error", "Upload gagal: " + e.getMessage());
+        }
+
+        model.addAttribute("note", note);
+        model.addAttribute("stockTakes", stockTakeService.getRecent());
+        return "product/stock-take";
+    }
+
+    // Endpoint untuk menampilkan laporan selisih stock opname per nilai
+    @GetMapping("/{id}")
+    public String viewStockTake(
+            @PathVariable Long id,
+            HttpSession session,
+            RedirectAttributes redirectAttributes,
+            Model model) {
+
+        if (!isAdmin(session)) {
+            return "redirect:/access/login";
+        }
+
+        try {
+            model.addAttribute("report", stockTakeService.getReport(id));
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/product/stock-take";
+        }
+
+        return "product/stock-take-detail";
+    }
+
+    // Endpoint untuk menerapkan selisih stock opname ke stok produk
+    @PostMapping("/{id}/apply")
+    public String applyStockTake(
+            @PathVariable Long id,
+            HttpSession session,
+            RedirectAttributes redirectAttributes) {
+
+        if (!isAdmin(session)) {
+            return "redirect:/access/login";
+        }
+
+        try {
+            stockTakeService.apply(id);
+            redirectAttributes.addFlashAttribute("successMessage", "Selisih stok berhasil diterapkan");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/product/stock-take/" + id;
+    }
+
+    // Endpoint untuk membatalkan sesi stock opname yang belum diterapkan
+    @PostMapping("/{id}/cancel")
+    public String cancelStockTake(
+            @PathVariable Long id,
+            HttpSession session,
+            RedirectAttributes redirectAttributes) {
+
+        if (!isAdmin(session)) {
+            return "redirect:/access/login";
+        }
+
+        try {
+            stockTakeService.cancel(id);
+            redirectAttributes.addFlashAttribute("successMessage", "Stock opname dibatalkan");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        return "redirect:/product/stock-take/" + id;
+    }
+}
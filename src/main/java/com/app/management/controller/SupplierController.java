@@ -1,6 +1,10 @@
 package com.app.management.controller;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -8,7 +12,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.app.management.model.Supplier;
+import com.app.management.model.user.Role;
 import com.app.management.model.user.User;
+import com.app.management.service.SupplierAnalyticsService;
 import com.app.management.service.SupplierService;
 
 import jakarta.servlet.http.HttpSession;
@@ -21,6 +27,9 @@ public class SupplierController {
     @Autowired
     private SupplierService supplierService;
 
+    @Autowired
+    private SupplierAnalyticsService supplierAnalyticsService;
+
     private String getDashboardUrl(String role) {
         if ("admin".equalsIgnoreCase(role)) {
             return "/admin/dashboard";
@@ -128,4 +137,41 @@ public class SupplierController {
 
         return "redirect:/supplier/list?role=" + role;
     }
+
+    // Endpoint untuk menampilkan analitik supplier (khusus admin)
+    @GetMapping("/analytics")
+    public String supplierAnalytics(
+            @RequestParam(value = "role", required = false, defaultValue = "admin") String role,
+            @RequestParam(defaultValue = "spend") String sort,
+            HttpSession session,
+            Model model) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return "redirect:/access/login";
+        }
+
+        model.addAttribute("analytics", supplierAnalyticsService.getAnalytics(sort));
+        model.addAttribute("sort", sort);
+        model.addAttribute("userRole", role);
+
+        return "supplier/supplier-analytics";
+    }
+
+    // Endpoint JSON untuk analitik supplier (khusus admin)
+    @GetMapping("/analytics/data")
+    @ResponseBody
+    public ResponseEntity<List<SupplierAnalyticsService.SupplierAnalyticsView>> supplierAnalyticsData(
+            @RequestParam(defaultValue = "spend") String sort,
+            HttpSession session) {
+
+        User user = (User) session.getAttribute("user");
+
+        if (user == null || user.getRole() != Role.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(supplierAnalyticsService.getAnalytics(sort));
+    }
 }
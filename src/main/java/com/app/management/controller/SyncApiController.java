@@ -0,0 +1,45 @@
+package com.app.management.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.app.management.service.CatalogSyncService;
+
+import jakarta.servlet.http.HttpSession;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncApiController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private CatalogSyncService catalogSyncService;
+
+    // Endpoint untuk mengambil perubahan produk / supplier sejak nomor urut "since" (NDJSON).
+    // Nilai "since" berikutnya dikirim di header X-Sync-Next
+    @GetMapping("/changes")
+    public ResponseEntity<StreamingResponseBody> changes(
+            @RequestParam(required = false) Long since,
+            HttpSession session) {
+
+        if (session.getAttribute("user") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (since != null && since < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        long until = catalogSyncService.getWatermark();
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("X-Sync-Next", Long.toString(until))
+                .body(out -> catalogSyncService.writeChanges(since, until, out));
+    }
+}
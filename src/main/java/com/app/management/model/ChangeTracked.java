@@ -0,0 +1,7 @@
+package com.app.management.model;
+
+// Entity yang ikut sinkronisasi delta ke terminal kasir; changeSeq diisi ulang setiap kali berubah
+public interface ChangeTracked {
+
+    void setChangeSeq(Long changeSeq);
+}
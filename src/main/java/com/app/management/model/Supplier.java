@@ -1,27 +1,46 @@
 package com.app.management.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
+import com.app.management.service.ChangeSequenceListener;
+
 import jakarta.persistence.Id;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.GeneratedValue;
 
 @Entity
-@Table(name = "suppliers")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "supplier")
+@Table(name = "suppliers", indexes = {
+        @Index(name = "idx_supplier_name", columnList = "supplierName"),
+        @Index(name = "idx_supplier_change_seq", columnList = "changeSeq")
+})
+@EntityListeners(ChangeSequenceListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class Supplier {
+public class Supplier implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String supplierName;
     private String telephoneNumber;
     private String address;
+
+    // Nomor urut perubahan terakhir untuk sinkronisasi delta ke terminal kasir
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long changeSeq = 0L;
 }
@@ -0,0 +1,67 @@
+package com.app.management.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.app.management.model.product.Product;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Agregat pembelian per supplier x produk: quantity, nilai, dan harga terakhir
+@Entity
+@Table(name = "supplier_product_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_supplier_product", columnNames = { "supplier_id", "product_id" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SupplierProductStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "supplier_id", nullable = false)
+    private Long supplierId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer totalQuantity = 0;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalCost = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer purchaseCount = 0;
+
+    // Harga dan quantity dari purchase selesai terakhir, plus satu nilai sebelumnya
+    // supaya pembatalan purchase terakhir bisa dikembalikan tanpa membaca purchase_details
+    private Long lastPurchaseId;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal lastUnitPrice;
+
+    private Integer lastQuantity;
+
+    private LocalDateTime lastPurchaseDate;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal previousUnitPrice;
+
+    private Integer previousQuantity;
+}
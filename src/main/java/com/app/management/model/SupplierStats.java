@@ -0,0 +1,42 @@
+package com.app.management.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Agregat pembelian per supplier, diperbarui setiap purchase selesai / dibatalkan
+@Entity
+@Table(name = "supplier_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SupplierStats {
+    // Sama dengan id supplier
+    @Id
+    private Long supplierId;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalSpend = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer purchaseCount = 0;
+
+    private LocalDateTime lastPurchaseDate;
+
+    // Jumlah menit dari purchase dibuat sampai barang diterima, untuk rata-rata lead time
+    @Column(nullable = false)
+    private Long totalLeadTimeMinutes = 0L;
+
+    // Jumlah purchase yang lead time-nya diketahui (purchase lama tidak punya waktu terima)
+    @Column(nullable = false)
+    private Integer leadTimeCount = 0;
+}
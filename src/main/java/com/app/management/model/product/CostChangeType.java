@@ -0,0 +1,6 @@
+package com.app.management.model.product;
+
+public enum CostChangeType {
+    RECEIPT,
+    REVERSAL
+}
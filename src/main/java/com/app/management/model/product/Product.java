@@ -4,14 +4,24 @@ import java.math.BigDecimal;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.app.management.model.ChangeTracked;
+import com.app.management.service.ChangeSequenceListener;
+
 import jakarta.persistence.Id;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.GeneratedValue;
@@ -20,13 +30,17 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.DecimalMin;
 
+// DynamicUpdate: update harga / nama tidak ikut menimpa current_stock yang dikelola stock engine
 @Entity
-@Table(name = "product")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
+@Table(name = "product", indexes = @Index(name = "idx_product_change_seq", columnList = "changeSeq"))
+@DynamicUpdate
+@EntityListeners(ChangeSequenceListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class Product {
+public class Product implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -43,6 +57,9 @@ public class Product {
     @Column(nullable = false)
     private Integer currentStock = 0;
 
+    // Stok saat produk dibuat; titik awal perhitungan stok seharusnya pada rekonsiliasi stok
+    private Integer openingStock;
+
     @NotNull(message = "Harga Jual harus diisi")
     @DecimalMin(value = "0.0", inclusive = false, message = "Harga jual harus > 0")
     @Column(precision = 19, scale = 2)
@@ -53,8 +70,22 @@ public class Product {
     @Column(precision = 19, scale = 2)
     private BigDecimal lastPurchasePrice;
 
+    // Harga pokok rata-rata tertimbang (moving average), diperbarui setiap purchase selesai / batal
+    @Column(precision = 19, scale = 4)
+    private BigDecimal averageCost;
+
+    // Quantity yang dinilai dengan averageCost (bertambah saat purchase selesai, berkurang saat terjual)
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer costedQuantity = 0;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
     private ProductStatus status;
 
+    // Nomor urut perubahan terakhir untuk sinkronisasi delta ke terminal kasir
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long changeSeq = 0L;
+
 }
\ No newline at end of file
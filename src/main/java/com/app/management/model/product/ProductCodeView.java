@@ -0,0 +1,11 @@
+package com.app.management.model.product;
+
+import java.math.BigDecimal;
+
+// Data produk yang dikembalikan saat kode produk di-scan
+public record ProductCodeView(
+        Long id,
+        String productCode,
+        String productName,
+        BigDecimal standardSellingPrice) {
+}
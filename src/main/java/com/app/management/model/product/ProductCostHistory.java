@@ -0,0 +1,68 @@
+package com.app.management.model.product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import com.app.management.model.purchase.Purchase;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Riwayat perubahan harga pokok rata-rata per produk (satu baris per detail purchase yang diterima / dibatalkan)
+@Entity
+@Table(name = "product_cost_history")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCostHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "purchase_id")
+    private Purchase purchase;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CostChangeType changeType;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal unitCost;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal averageCostBefore;
+
+    @Column(precision = 19, scale = 4)
+    private BigDecimal averageCostAfter;
+
+    @Column(nullable = false)
+    private Integer costedQuantityAfter;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
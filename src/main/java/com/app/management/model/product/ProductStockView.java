@@ -0,0 +1,11 @@
+package com.app.management.model.product;
+
+import java.math.BigDecimal;
+
+// Data minimum produk untuk mencocokkan hasil stock opname (kode dalam huruf besar)
+public record ProductStockView(
+        Long id,
+        String productCode,
+        Integer currentStock,
+        BigDecimal unitCost) {
+}
@@ -0,0 +1,33 @@
+package com.app.management.model.product;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Kecepatan penjualan per produk (unit / hari), rata-rata bergerak eksponensial
+// yang diperbarui setiap invoice selesai
+@Entity
+@Table(name = "product_velocity")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductVelocity {
+    // Sama dengan id produk
+    @Id
+    private Long productId;
+
+    // Nilai kecepatan pada saat updatedAt; dibaca dengan peluruhan sesuai waktu yang sudah lewat
+    @Column(nullable = false)
+    private Double unitsPerDay = 0.0;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
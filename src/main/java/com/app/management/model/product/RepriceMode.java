@@ -0,0 +1,11 @@
+package com.app.management.model.product;
+
+// Cara menghitung harga jual baru pada perubahan harga massal
+public enum RepriceMode {
+    // Harga jual lama naik / turun sekian persen
+    PERCENT,
+    // Harga jual lama ditambah / dikurangi nominal tetap
+    ABSOLUTE,
+    // Harga beli terakhir ditambah markup sekian persen
+    COST_MARKUP
+}
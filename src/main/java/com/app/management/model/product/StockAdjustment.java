@@ -0,0 +1,57 @@
+package com.app.management.model.product;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Pergerakan stok hasil stock opname: stok sistem saat dihitung, hasil hitung, dan selisihnya
+@Entity
+@Table(name = "stock_adjustment",
+        uniqueConstraints = @UniqueConstraint(name = "uk_adjustment_product",
+                columnNames = { "stock_take_id", "product_id" }),
+        indexes = @Index(name = "idx_adjustment_product", columnList = "product_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "stock_take_id", nullable = false)
+    private StockTake stockTake;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private Integer systemQuantity;
+
+    @Column(nullable = false)
+    private Integer countedQuantity;
+
+    // countedQuantity - systemQuantity, ditambahkan ke stok saat sesi diterapkan
+    @Column(nullable = false)
+    private Integer difference;
+
+    // Harga pokok rata-rata (atau harga beli terakhir) saat dihitung
+    @Column(precision = 19, scale = 4, nullable = false)
+    private BigDecimal unitCost;
+}
@@ -0,0 +1,47 @@
+package com.app.management.model.product;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Journal stock engine: satu baris per perubahan stok on-hand yang sudah di-ack engine, atau per
+// pengurangan quantity yang dinilai harga pokok saat penjualan.
+// Ditulis di transaksi dokumen yang sama (invoice, purchase, stock opname), jadi hanya perubahan
+// yang ikut commit yang tersimpan. Writer menerapkan baris ke product.current_stock lalu
+// menghapusnya dalam satu transaksi, sehingga replay setelah crash tidak pernah dobel.
+@Entity
+@Table(name = "stock_journal", indexes = {
+        @Index(name = "idx_stock_journal_shard", columnList = "shard, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockJournalEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Integer costedDelta;
+}
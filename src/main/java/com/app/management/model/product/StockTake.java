@@ -0,0 +1,64 @@
+package com.app.management.model.product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Satu sesi stock opname. Selisih per produk disimpan di stock_adjustment saat hasil hitung di-upload,
+// total nilai selisih dihitung sekali di sini supaya laporan tidak perlu menjumlah ulang semua baris
+@Entity
+@Table(name = "stock_take")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockTake {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String note;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockTakeStatus status = StockTakeStatus.DRAFT;
+
+    // Jumlah produk yang dihitung
+    @Column(nullable = false)
+    private Integer lineCount = 0;
+
+    // Jumlah produk yang hasil hitungnya berbeda dengan stok sistem
+    @Column(nullable = false)
+    private Integer varianceCount = 0;
+
+    // Nilai barang kurang (negatif) dan lebih (positif) berdasarkan harga pokok
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal shortageValue = BigDecimal.ZERO;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal surplusValue = BigDecimal.ZERO;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime appliedAt;
+
+    public BigDecimal getNetValue() {
+        return surplusValue.add(shortageValue);
+    }
+}
@@ -0,0 +1,7 @@
+package com.app.management.model.product;
+
+public enum StockTakeStatus {
+    DRAFT,
+    APPLIED,
+    CANCELLED
+}
@@ -0,0 +1,14 @@
+package com.app.management.model.product;
+
+import java.math.BigDecimal;
+
+// Satu baris laporan selisih stock opname
+public record StockVarianceView(
+        String productCode,
+        String productName,
+        Integer systemQuantity,
+        Integer countedQuantity,
+        Integer difference,
+        BigDecimal unitCost,
+        BigDecimal varianceValue) {
+}
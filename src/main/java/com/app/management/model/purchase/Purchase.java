@@ -24,11 +24,14 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import com.app.management.model.Supplier;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "purchase")
 @Table(name = "purchase")
 @Getter
 @Setter
@@ -57,6 +60,10 @@ public class Purchase {
     @Column(nullable = false)
     private PurchaseStatus status;
 
+    // Waktu barang diterima (purchase diselesaikan)
+    private LocalDateTime completedAt;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "purchase")
     @OneToMany(mappedBy = "purchase", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<PurchaseDetails> purchaseDetails = new ArrayList<>();
 
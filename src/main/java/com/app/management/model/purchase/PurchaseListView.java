@@ -0,0 +1,14 @@
+package com.app.management.model.purchase;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Baris daftar purchase: hanya kolom yang ditampilkan di list-purchase, bukan entity managed
+public record PurchaseListView(
+        Long id,
+        String referenceNumber,
+        String supplierName,
+        LocalDateTime purchaseDate,
+        BigDecimal totalPurchase,
+        PurchaseStatus status) {
+}
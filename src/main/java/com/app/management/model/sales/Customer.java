@@ -0,0 +1,53 @@
+package com.app.management.model.sales;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+
+// Customer unik per nama yang dinormalisasi (huruf kecil, tanpa aksen, spasi dirapikan),
+// beserta total penjualan yang diperbarui setiap invoice selesai
+@Entity
+@Table(name = "customer", uniqueConstraints = @UniqueConstraint(name = "uk_customer_key", columnNames = "customerKey"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Customer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String customerKey;
+
+    // Nama seperti pertama kali diketik di invoice
+    @Column(nullable = false)
+    private String customerName;
+
+    // Jumlah invoice COMPLETED
+    @Column(nullable = false)
+    private Integer invoiceCount = 0;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal lifetimeSales = BigDecimal.ZERO;
+
+    private LocalDateTime lastPurchaseDate;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,10 @@
+package com.app.management.model.sales;
+
+import java.math.BigDecimal;
+
+// Penjualan ke satu customer dalam suatu periode; dikelompokkan per Customer
+public record CustomerSalesRank(
+        String customerName,
+        Long invoiceCount,
+        BigDecimal revenue) {
+}
@@ -18,7 +18,11 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "sales-invoice")
 @Table(name = "invoice_details")
 @Getter
 @Setter
@@ -44,4 +48,8 @@ public class InvoiceDetails {
     
     @Column(precision = 19, scale = 2)
     private BigDecimal subtotal;
+
+    // Harga pokok rata-rata produk saat invoice diselesaikan
+    @Column(precision = 19, scale = 4)
+    private BigDecimal unitCost;
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.app.management.model.sales;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Draft invoice yang masih disusun di session (belum ada di database). Subtotal dijaga
+// sebagai jumlah berjalan, jadi perubahan satu baris tidak perlu menjumlah ulang semua baris
+@Getter
+@Setter
+public class InvoiceDraft implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private String customerName;
+
+    private String invoiceNumber;
+
+    private BigDecimal vatPercentage = BigDecimal.ZERO;
+
+    // productId -> baris, urut sesuai urutan ditambahkan
+    private final LinkedHashMap<Long, InvoiceDraftLine> lines = new LinkedHashMap<>();
+
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    public InvoiceDraft(String id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,14 @@
+package com.app.management.model.sales;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+// Satu baris draft invoice; diganti utuh setiap kali quantity / harga berubah
+public record InvoiceDraftLine(
+        Long productId,
+        String productCode,
+        String productName,
+        BigDecimal unitPrice,
+        Integer quantity,
+        BigDecimal subtotal) implements Serializable {
+}
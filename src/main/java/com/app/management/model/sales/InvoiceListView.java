@@ -0,0 +1,15 @@
+package com.app.management.model.sales;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Baris daftar invoice: hanya kolom yang ditampilkan di list-invoice, bukan entity managed
+public record InvoiceListView(
+        Long id,
+        String invoiceNumber,
+        String customerName,
+        Long customerId,
+        LocalDateTime invoiceDate,
+        BigDecimal totalSales,
+        SalesStatus salesStatus) {
+}
@@ -0,0 +1,12 @@
+package com.app.management.model.sales;
+
+import java.math.BigDecimal;
+
+// Penjualan satu produk dalam suatu periode (hasil GROUP BY di database)
+public record ProductSalesRank(
+        Long productId,
+        String productCode,
+        String productName,
+        Long quantity,
+        BigDecimal revenue) {
+}
@@ -0,0 +1,8 @@
+package com.app.management.model.sales;
+
+public enum ReservationStatus {
+    ACTIVE,
+    CONSUMED,
+    RELEASED,
+    EXPIRED
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -15,6 +16,8 @@ import lombok.Setter;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 
 import java.math.BigDecimal;
@@ -22,11 +25,17 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "sales_invoice")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "sales-invoice")
+@Table(name = "sales_invoice", indexes = {
+        @Index(name = "idx_sales_status_date", columnList = "salesStatus, invoiceDate"),
+        @Index(name = "idx_sales_customer", columnList = "customer_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -45,6 +54,11 @@ public class SalesInvoice {
     @Column(nullable = false)
     private String customerName;
 
+    // Customer hasil normalisasi customerName; customerName tetap disimpan apa adanya di invoice
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
+    private Customer customer;
+
     @Column(precision = 19, scale = 2)
     private BigDecimal totalSales = BigDecimal.ZERO;
 
@@ -56,6 +70,7 @@ public class SalesInvoice {
     @ColumnDefault("'CREATED'")
     private SalesStatus salesStatus = SalesStatus.CREATED;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "sales-invoice")
     @OneToMany(mappedBy = "salesInvoice", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<InvoiceDetails> invoiceDetails = new ArrayList<>();
 
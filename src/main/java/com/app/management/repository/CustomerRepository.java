@@ -0,0 +1,68 @@
+package com.app.management.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.sales.Customer;
+import com.app.management.model.sales.SalesStatus;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    Optional<Customer> findByCustomerKey(String customerKey);
+
+    List<Customer> findByCustomerKeyIn(Collection<String> customerKeys);
+
+    // Id customer dengan awalan kunci tertentu (range scan pada uk_customer_key), dibatasi lewat pageable
+    @Query("SELECT c.id FROM Customer c WHERE c.customerKey LIKE :prefix ESCAPE '!' ORDER BY c.customerKey")
+    List<Long> findIdsByCustomerKeyPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    // Locking read: selalu melihat baris terbaru walaupun snapshot transaksi lebih lama
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM Customer c WHERE c.customerKey = :customerKey")
+    Optional<Customer> findCurrentByCustomerKey(@Param("customerKey") String customerKey);
+
+    // Kunci baris customer supaya dua invoice yang selesai bersamaan tidak saling menimpa total
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.id = :id")
+    Optional<Customer> findForUpdate(@Param("id") Long id);
+
+    // Insert tanpa gagal jika kunci sudah dibuat transaksi lain (race pada invoice pertama customer baru).
+    // Query space dibatasi ke tabel customer supaya second-level cache region lain tidak ikut dibuang
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "customer"))
+    @Query(value = "INSERT IGNORE INTO customer "
+            + "(customer_key, customer_name, invoice_count, lifetime_sales, created_at) "
+            + "VALUES (:customerKey, :customerName, 0, 0, :createdAt)", nativeQuery = true)
+    int insertIfAbsent(
+            @Param("customerKey") String customerKey,
+            @Param("customerName") String customerName,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    // Hitung ulang total dari invoice selesai (dipakai backfill data lama)
+    @Modifying
+    @Query("UPDATE Customer c SET "
+            + "c.invoiceCount = (SELECT COUNT(s) FROM SalesInvoice s "
+            + "WHERE s.customer = c AND s.salesStatus = :status), "
+            + "c.lifetimeSales = (SELECT COALESCE(SUM(s.totalSales), 0) FROM SalesInvoice s "
+            + "WHERE s.customer = c AND s.salesStatus = :status), "
+            + "c.lastPurchaseDate = (SELECT MAX(s.invoiceDate) FROM SalesInvoice s "
+            + "WHERE s.customer = c AND s.salesStatus = :status) "
+            + "WHERE c.id IN :ids")
+    int recalculateTotals(@Param("ids") Collection<Long> ids, @Param("status") SalesStatus status);
+}
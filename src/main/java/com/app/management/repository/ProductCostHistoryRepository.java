@@ -0,0 +1,11 @@
+package com.app.management.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.product.ProductCostHistory;
+
+@Repository
+public interface ProductCostHistoryRepository extends JpaRepository<ProductCostHistory, Long> {
+
+}
@@ -1,11 +1,17 @@
 package com.app.management.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductCodeView;
+import com.app.management.model.product.ProductStockView;
 import com.app.management.model.product.ProductStatus;
 
 @Repository
@@ -22,4 +28,26 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             String keyword,
             ProductStatus status);
 
+    // Lookup banyak kode product sekaligus (kode dibandingkan dalam huruf besar)
+    @Query("SELECT p FROM Product p WHERE UPPER(p.productCode) IN :codes")
+    List<Product> findByProductCodeUpperIn(@Param("codes") Collection<String> codes);
+
+    // Semua produk dengan status tertentu untuk index kode produk di memori
+    @Query("SELECT new com.app.management.model.product.ProductCodeView("
+            + "p.id, p.productCode, p.productName, p.standardSellingPrice) "
+            + "FROM Product p WHERE p.status = :status")
+    List<ProductCodeView> findCodeViewsByStatus(@Param("status") ProductStatus status);
+
+    // Stok dan harga pokok untuk banyak kode sekaligus (stock opname), tanpa memuat entity
+    @Query("SELECT new com.app.management.model.product.ProductStockView("
+            + "p.id, UPPER(p.productCode), p.currentStock, "
+            + "COALESCE(p.averageCost, p.lastPurchasePrice, 0)) "
+            + "FROM Product p WHERE UPPER(p.productCode) IN :codes")
+    List<ProductStockView> findStockViewsByCodeUpperIn(@Param("codes") Collection<String> codes);
+
+    // Nilai persediaan berdasarkan harga pokok rata-rata yang sudah dihitung sebelumnya
+    @Query("SELECT COALESCE(SUM(p.averageCost * p.costedQuantity), 0) FROM Product p "
+            + "WHERE p.averageCost IS NOT NULL")
+    BigDecimal sumInventoryValue();
+
 }
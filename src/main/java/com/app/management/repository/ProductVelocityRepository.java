@@ -0,0 +1,10 @@
+package com.app.management.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.product.ProductVelocity;
+
+@Repository
+public interface ProductVelocityRepository extends JpaRepository<ProductVelocity, Long> {
+}
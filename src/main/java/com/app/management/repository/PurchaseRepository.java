@@ -1,12 +1,20 @@
 package com.app.management.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.app.management.model.purchase.Purchase;
+import com.app.management.model.purchase.PurchaseListView;
 import com.app.management.model.purchase.PurchaseStatus;
 
 @Repository
@@ -18,4 +26,62 @@ public interface PurchaseRepository extends JpaRepository<Purchase, Long> {
             PurchaseStatus status,
             LocalDateTime start,
             LocalDateTime end);
+
+    long countByStatus(PurchaseStatus status);
+
+    // Proyeksi untuk halaman daftar purchase; nama supplier diambil lewat join, bukan entity Supplier
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new com.app.management.model.purchase.PurchaseListView("
+            + "p.id, p.referenceNumber, sp.supplierName, p.purchaseDate, p.totalPurchase, p.status) "
+            + "FROM Purchase p LEFT JOIN p.supplier sp",
+            countQuery = "SELECT COUNT(p) FROM Purchase p")
+    Page<PurchaseListView> findListViews(Pageable pageable);
+
+    // Pencarian berdasarkan awalan no. referensi (index unik reference_number)
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new com.app.management.model.purchase.PurchaseListView("
+            + "p.id, p.referenceNumber, sp.supplierName, p.purchaseDate, p.totalPurchase, p.status) "
+            + "FROM Purchase p LEFT JOIN p.supplier sp "
+            + "WHERE p.referenceNumber LIKE :prefix ESCAPE '!'",
+            countQuery = "SELECT COUNT(p) FROM Purchase p WHERE p.referenceNumber LIKE :prefix ESCAPE '!'")
+    Page<PurchaseListView> searchListViews(@Param("prefix") String prefix, Pageable pageable);
+
+    // Pencarian berdasarkan awalan no. referensi atau supplier yang namanya cocok
+    // (index reference_number dan foreign key supplier_id)
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new com.app.management.model.purchase.PurchaseListView("
+            + "p.id, p.referenceNumber, sp.supplierName, p.purchaseDate, p.totalPurchase, p.status) "
+            + "FROM Purchase p LEFT JOIN p.supplier sp "
+            + "WHERE p.referenceNumber LIKE :prefix ESCAPE '!' OR p.supplier.id IN :supplierIds",
+            countQuery = "SELECT COUNT(p) FROM Purchase p "
+                    + "WHERE p.referenceNumber LIKE :prefix ESCAPE '!' OR p.supplier.id IN :supplierIds")
+    Page<PurchaseListView> searchListViews(
+            @Param("prefix") String prefix,
+            @Param("supplierIds") List<Long> supplierIds,
+            Pageable pageable);
+
+    // Status purchase saja, untuk kunci cache dokumen tanpa memuat detail
+    @Query("SELECT p.status FROM Purchase p WHERE p.id = :id")
+    Optional<PurchaseStatus> findStatusById(@Param("id") Long id);
+
+    // Ambil purchase beserta detail dan produknya sekaligus (untuk render dokumen di luar persistence context)
+    @Query("SELECT DISTINCT p FROM Purchase p "
+            + "LEFT JOIN FETCH p.purchaseDetails d "
+            + "LEFT JOIN FETCH d.product "
+            + "WHERE p.id = :id")
+    Optional<Purchase> findWithDetailsById(@Param("id") Long id);
+
+    // Ambil banyak purchase sekaligus beserta detail dan produknya (penerimaan barang massal)
+    @Query("SELECT DISTINCT p FROM Purchase p "
+            + "LEFT JOIN FETCH p.purchaseDetails d "
+            + "LEFT JOIN FETCH d.product "
+            + "WHERE p.id IN :ids")
+    List<Purchase> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT p FROM Purchase p "
+            + "LEFT JOIN FETCH p.purchaseDetails d "
+            + "LEFT JOIN FETCH d.product "
+            + "WHERE p.status = :status "
+            + "ORDER BY p.id")
+    List<Purchase> findAllWithDetailsByStatus(@Param("status") PurchaseStatus status);
 }
@@ -1,12 +1,29 @@
 package com.app.management.repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
+
+import com.app.management.model.sales.Customer;
+import com.app.management.model.sales.CustomerSalesRank;
+import com.app.management.model.sales.InvoiceListView;
+import com.app.management.model.sales.ProductSalesRank;
 import com.app.management.model.sales.SalesInvoice;
 import com.app.management.model.sales.SalesStatus;
 
@@ -18,9 +35,126 @@ public interface SalesInvoiceRepository extends JpaRepository<SalesInvoice, Long
             LocalDateTime start,
             LocalDateTime end);
 
-    List<SalesInvoice> findByInvoiceNumberContainingIgnoreCaseOrCustomerNameContainingIgnoreCase(
-            String invoiceNumber,
-            String customerName,
-            Sort sort);
+    long countBySalesStatus(SalesStatus status);
+
+    long countBySalesStatusAndInvoiceDateBetween(
+            SalesStatus status,
+            LocalDateTime start,
+            LocalDateTime end);
+
+    // Total penjualan (termasuk PPN) dari invoice dengan status tertentu dalam rentang tanggal
+    @Query("SELECT COALESCE(SUM(s.totalSales), 0) FROM SalesInvoice s "
+            + "WHERE s.salesStatus = :status "
+            + "AND s.invoiceDate BETWEEN :start AND :end")
+    BigDecimal sumTotalSales(
+            @Param("status") SalesStatus status,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    // Pendapatan (sebelum PPN) dari invoice selesai dalam rentang tanggal
+    @Query("SELECT COALESCE(SUM(d.subtotal), 0) FROM InvoiceDetails d "
+            + "WHERE d.salesInvoice.salesStatus = :status "
+            + "AND d.salesInvoice.invoiceDate BETWEEN :start AND :end")
+    BigDecimal sumRevenue(
+            @Param("status") SalesStatus status,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    // Harga pokok penjualan: quantity x harga pokok yang dicatat saat invoice selesai
+    // (invoice lama tanpa unitCost memakai harga pokok produk saat ini)
+    @Query("SELECT COALESCE(SUM(d.quantity * COALESCE(d.unitCost, p.averageCost, p.lastPurchasePrice)), 0) "
+            + "FROM InvoiceDetails d JOIN d.product p "
+            + "WHERE d.salesInvoice.salesStatus = :status "
+            + "AND d.salesInvoice.invoiceDate BETWEEN :start AND :end")
+    BigDecimal sumCostOfSales(
+            @Param("status") SalesStatus status,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    // Produk terlaris (pendapatan sebelum PPN); jumlah baris dibatasi lewat Pageable
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.app.management.model.sales.ProductSalesRank("
+            + "p.id, p.productCode, p.productName, SUM(d.quantity), SUM(d.subtotal)) "
+            + "FROM InvoiceDetails d JOIN d.product p JOIN d.salesInvoice s "
+            + "WHERE s.salesStatus = :status AND s.invoiceDate BETWEEN :start AND :end "
+            + "GROUP BY p.id, p.productCode, p.productName "
+            + "ORDER BY SUM(d.subtotal) DESC, p.id")
+    List<ProductSalesRank> findTopProducts(
+            @Param("status") SalesStatus status,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            Pageable pageable);
+
+    // Total per customer (dikelompokkan per baris Customer, bukan per teks nama), dibaca bertahap lewat cursor
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.app.management.model.sales.CustomerSalesRank("
+            + "c.customerName, COUNT(s), SUM(s.totalSales)) "
+            + "FROM SalesInvoice s JOIN s.customer c "
+            + "WHERE s.salesStatus = :status AND s.invoiceDate BETWEEN :start AND :end "
+            + "GROUP BY c.id, c.customerName")
+    Stream<CustomerSalesRank> streamCustomerTotals(
+            @Param("status") SalesStatus status,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    // Proyeksi untuk halaman daftar invoice (tanpa entity managed / dirty checking)
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.app.management.model.sales.InvoiceListView("
+            + "s.id, s.invoiceNumber, s.customerName, c.id, s.invoiceDate, s.totalSales, s.salesStatus) "
+            + "FROM SalesInvoice s LEFT JOIN s.customer c")
+    List<InvoiceListView> findListViews(Sort sort);
+
+    // Id invoice dengan awalan no. invoice (range scan pada unique index invoice_number),
+    // dibatasi lewat pageable
+    @Query("SELECT s.id FROM SalesInvoice s WHERE s.invoiceNumber LIKE :prefix ESCAPE '!' "
+            + "ORDER BY s.invoiceNumber DESC")
+    List<Long> findIdsByInvoiceNumberPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    // Id invoice milik beberapa customer (index customer_id), terbaru dulu, dibatasi lewat pageable
+    @Query("SELECT s.id FROM SalesInvoice s WHERE s.customer.id IN :customerIds ORDER BY s.id DESC")
+    List<Long> findIdsByCustomerIdIn(@Param("customerIds") Collection<Long> customerIds, Pageable pageable);
+
+    // Proyeksi daftar invoice untuk id hasil pencarian (lookup primary key)
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.app.management.model.sales.InvoiceListView("
+            + "s.id, s.invoiceNumber, s.customerName, c.id, s.invoiceDate, s.totalSales, s.salesStatus) "
+            + "FROM SalesInvoice s LEFT JOIN s.customer c WHERE s.id IN :ids")
+    List<InvoiceListView> findListViewsByIdIn(@Param("ids") Collection<Long> ids, Sort sort);
+
+    // Riwayat invoice satu customer (index customer_id)
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.app.management.model.sales.InvoiceListView("
+            + "s.id, s.invoiceNumber, s.customerName, s.customer.id, s.invoiceDate, s.totalSales, s.salesStatus) "
+            + "FROM SalesInvoice s WHERE s.customer.id = :customerId")
+    List<InvoiceListView> findListViewsByCustomerId(@Param("customerId") Long customerId, Sort sort);
+
+    // Nama customer di invoice lama yang belum terhubung ke tabel customer
+    @Query("SELECT DISTINCT s.customerName FROM SalesInvoice s WHERE s.customer IS NULL")
+    List<String> findUnlinkedCustomerNames(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE SalesInvoice s SET s.customer = :customer "
+            + "WHERE s.customer IS NULL AND s.customerName IN :names")
+    int linkCustomer(@Param("customer") Customer customer, @Param("names") Collection<String> names);
+
+    // Status invoice saja, untuk kunci cache dokumen tanpa memuat detail
+    @Query("SELECT s.salesStatus FROM SalesInvoice s WHERE s.id = :id")
+    Optional<SalesStatus> findSalesStatusById(@Param("id") Long id);
+
+    // Ambil invoice beserta detail dan produknya sekaligus (untuk render dokumen di luar persistence context)
+    @Query("SELECT DISTINCT s FROM SalesInvoice s "
+            + "LEFT JOIN FETCH s.invoiceDetails d "
+            + "LEFT JOIN FETCH d.product "
+            + "WHERE s.id = :id")
+    Optional<SalesInvoice> findWithDetailsById(@Param("id") Long id);
+
+    // Ambil banyak invoice beserta detail dan produknya dalam satu query (penyelesaian massal)
+    @Query("SELECT DISTINCT s FROM SalesInvoice s "
+            + "LEFT JOIN FETCH s.invoiceDetails d "
+            + "LEFT JOIN FETCH d.product "
+            + "WHERE s.id IN :ids "
+            + "ORDER BY s.invoiceDate, s.id")
+    List<SalesInvoice> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
 
 }
@@ -0,0 +1,25 @@
+package com.app.management.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.product.StockAdjustment;
+import com.app.management.model.product.StockVarianceView;
+
+@Repository
+public interface StockAdjustmentRepository extends JpaRepository<StockAdjustment, Long> {
+
+    // Selisih stock opname, urut dari nilai selisih terbesar (kurang maupun lebih)
+    @Query("SELECT new com.app.management.model.product.StockVarianceView("
+            + "p.productCode, p.productName, a.systemQuantity, a.countedQuantity, a.difference, "
+            + "a.unitCost, a.difference * a.unitCost) "
+            + "FROM StockAdjustment a JOIN a.product p "
+            + "WHERE a.stockTake.id = :stockTakeId AND a.difference <> 0 "
+            + "ORDER BY ABS(a.difference * a.unitCost) DESC, p.productCode")
+    List<StockVarianceView> findVarianceViews(@Param("stockTakeId") Long stockTakeId, Pageable pageable);
+}
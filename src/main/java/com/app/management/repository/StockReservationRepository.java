@@ -0,0 +1,43 @@
+package com.app.management.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.sales.ReservationStatus;
+import com.app.management.model.sales.StockReservation;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Reservasi yang diubah statusnya selalu dibaca dengan kunci baris: penyelesaian, pembatalan dan
+    // kedaluwarsa invoice yang sama saling menunggu, dan yang kedua tidak lagi melihat baris ACTIVE
+    // sehingga tahanan tidak dilepas dua kali
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockReservation> findBySalesInvoiceIdAndStatus(Long invoiceId, ReservationStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockReservation> findBySalesInvoiceIdInAndStatus(Collection<Long> invoiceIds, ReservationStatus status);
+
+    // Satu batch reservasi yang sudah lewat masa berlaku
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r "
+            + "WHERE r.status = com.app.management.model.sales.ReservationStatus.ACTIVE "
+            + "AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Total quantity yang masih ditahan per produk: [productId, quantity]
+    @Query("SELECT r.product.id, SUM(r.quantity) FROM StockReservation r "
+            + "WHERE r.status = com.app.management.model.sales.ReservationStatus.ACTIVE "
+            + "GROUP BY r.product.id")
+    List<Object[]> sumActiveByProduct();
+}
@@ -0,0 +1,25 @@
+package com.app.management.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.product.StockTake;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface StockTakeRepository extends JpaRepository<StockTake, Long> {
+
+    List<StockTake> findTop20ByOrderByIdDesc();
+
+    // Kunci sesi supaya satu sesi tidak diterapkan dua kali
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM StockTake t WHERE t.id = :id")
+    Optional<StockTake> findForUpdate(@Param("id") Long id);
+}
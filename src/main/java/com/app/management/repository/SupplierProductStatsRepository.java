@@ -0,0 +1,45 @@
+package com.app.management.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.SupplierProductStats;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface SupplierProductStatsRepository extends JpaRepository<SupplierProductStats, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SupplierProductStats s "
+            + "WHERE s.supplierId = :supplierId AND s.product.id IN :productIds")
+    List<SupplierProductStats> findForUpdate(
+            @Param("supplierId") Long supplierId,
+            @Param("productIds") Collection<Long> productIds);
+
+    // Baris kosong untuk purchase pertama supplier x produk; tidak gagal jika transaksi lain
+    // sudah membuatnya (uk_supplier_product)
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "supplier_product_stats"))
+    @Query(value = "INSERT IGNORE INTO supplier_product_stats "
+            + "(supplier_id, product_id, total_quantity, total_cost, purchase_count) "
+            + "VALUES (:supplierId, :productId, 0, 0, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("supplierId") Long supplierId, @Param("productId") Long productId);
+
+    @Query("SELECT s FROM SupplierProductStats s "
+            + "WHERE s.product.id IN :productIds AND s.totalQuantity > 0")
+    List<SupplierProductStats> findByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT s FROM SupplierProductStats s JOIN FETCH s.product")
+    List<SupplierProductStats> findAllWithProduct();
+}
@@ -0,0 +1,34 @@
+package com.app.management.repository;
+
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.app.management.model.SupplierStats;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface SupplierStatsRepository extends JpaRepository<SupplierStats, Long> {
+
+    // Kunci baris agregat supaya dua purchase yang selesai bersamaan tidak saling menimpa
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SupplierStats s WHERE s.supplierId = :supplierId")
+    Optional<SupplierStats> findForUpdate(@Param("supplierId") Long supplierId);
+
+    // Baris kosong untuk purchase pertama supplier; tidak gagal jika transaksi lain sudah membuatnya
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "supplier_stats"))
+    @Query(value = "INSERT IGNORE INTO supplier_stats "
+            + "(supplier_id, total_spend, purchase_count, total_lead_time_minutes, lead_time_count) "
+            + "VALUES (:supplierId, 0, 0, 0, 0)", nativeQuery = true)
+    int insertIfAbsent(@Param("supplierId") Long supplierId);
+}
@@ -4,6 +4,7 @@ import com.app.management.model.user.Role;
 import com.app.management.model.user.User;
 import com.app.management.model.user.UserStatus;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -21,4 +22,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT COUNT(u) FROM User u WHERE u.role != 'ADMIN'")
     long countAllUsersExcludingAdmin();
 
+    List<User> findByStatusOrderByIdAsc(UserStatus status, Pageable pageable);
+
+    // Jumlah user per role dan status: [role, status, jumlah]
+    @Query("SELECT u.role, u.status, COUNT(u) FROM User u GROUP BY u.role, u.status")
+    List<Object[]> countGroupByRoleAndStatus();
+
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.app.management.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+// Sinkronisasi delta katalog ke terminal kasir: hanya baris product / suppliers dengan
+// change_seq di antara "since" milik terminal dan watermark saat ini, dibaca lewat cursor
+// dan ditulis langsung ke response sebagai NDJSON (satu objek JSON per baris)
+@Service
+public class CatalogSyncService {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final byte[] NEW_LINE = { '\n' };
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    public record ProductChange(
+            String type,
+            long seq,
+            long id,
+            String code,
+            String name,
+            BigDecimal price,
+            int stock,
+            String status) {
+    }
+
+    public record SupplierChange(
+            String type,
+            long seq,
+            long id,
+            String name,
+            String phone,
+            String address) {
+    }
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    // Method untuk mengambil batas atas sync berikutnya; terminal menyimpannya sebagai "since"
+    public long getWatermark() {
+        return changeSequence.watermark();
+    }
+
+    // Method untuk menulis semua perubahan dengan since < change_seq <= until sebagai NDJSON.
+    // since null = sync penuh (termasuk baris lama yang belum pernah berubah)
+    public void writeChanges(Long since, long until, OutputStream out) {
+        long from = since == null ? -1 : since;
+
+        streamingJdbcTemplate.query(
+                "SELECT id, product_code, product_name, standard_selling_price, current_stock, status, change_seq "
+                        + "FROM product WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq",
+                rs -> {
+                    writeLine(out, new ProductChange(
+                            "product",
+                            rs.getLong(7),
+                            rs.getLong(1),
+                            rs.getString(2),
+                            rs.getString(3),
+                            rs.getBigDecimal(4),
+                            rs.getInt(5),
+                            rs.getString(6)));
+                },
+                from, until);
+
+        streamingJdbcTemplate.query(
+                "SELECT id, supplier_name, telephone_number, address, change_seq "
+                        + "FROM suppliers WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq",
+                rs -> {
+                    writeLine(out, new SupplierChange(
+                            "supplier",
+                            rs.getLong(5),
+                            rs.getLong(1),
+                            rs.getString(2),
+                            rs.getString(3),
+                            rs.getString(4)));
+                },
+                from, until);
+    }
+
+    private void writeLine(OutputStream out, Object change) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(change));
+            out.write(NEW_LINE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Gagal menulis data sync", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.app.management.service;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Nomor urut perubahan global untuk product dan suppliers. Nomor diambil saat flush, tetapi baru
+// terlihat oleh terminal setelah transaksinya selesai: watermark tidak pernah melewati nomor
+// yang masih dipegang transaksi yang belum commit, jadi sync "since" tidak melompati perubahan
+@Component
+public class ChangeSequence {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private long current;
+
+    private boolean initialized;
+
+    // Method untuk mengambil nomor urut berikutnya untuk baris yang sedang diubah
+    public synchronized long next() {
+        initialize();
+
+        long seq = ++current;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.add(seq);
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.remove(seq);
+                }
+            });
+        }
+
+        return seq;
+    }
+
+    // Method untuk mengambil nomor urut terbesar yang semua perubahan sebelumnya sudah selesai
+    public synchronized long watermark() {
+        initialize();
+        return inFlight.isEmpty() ? current : inFlight.first() - 1;
+    }
+
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+
+        Long max = jdbcTemplate.queryForObject(
+                "SELECT GREATEST("
+                        + "(SELECT COALESCE(MAX(change_seq), 0) FROM product), "
+                        + "(SELECT COALESCE(MAX(change_seq), 0) FROM suppliers))",
+                Long.class);
+
+        current = max == null ? 0 : max;
+        initialized = true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.app.management.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.app.management.model.ChangeTracked;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+// Entity listener: setiap insert / update lewat Hibernate mendapat nomor urut perubahan baru.
+// Update lewat JDBC / bulk update mengisi change_seq sendiri dari ChangeSequence
+public class ChangeSequenceListener {
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @PrePersist
+    @PreUpdate
+    void stamp(ChangeTracked entity) {
+        entity.setChangeSeq(changeSequence.next());
+    }
+}
@@ -0,0 +1,148 @@
+package com.app.management.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.management.model.sales.Customer;
+import com.app.management.model.sales.InvoiceListView;
+import com.app.management.model.sales.SalesInvoice;
+import com.app.management.model.sales.SalesStatus;
+import com.app.management.repository.CustomerRepository;
+import com.app.management.repository.SalesInvoiceRepository;
+
+// Customer dikenali dari nama yang dinormalisasi (sama seperti pencarian supplier),
+// jadi "Budi", " budi " dan "BUDI" adalah satu customer. Total per customer diperbarui
+// saat invoice selesai sehingga statement cukup membaca satu baris customer + index customer_id
+@Service
+public class CustomerService {
+
+    private static final String BLANK_NAME_KEY = "-";
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private SalesInvoiceRepository salesInvoiceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.customer.backfill-batch-size:500}")
+    private int backfillBatchSize;
+
+    public record CustomerStatement(Customer customer, List<InvoiceListView> invoices) {
+    }
+
+    // Method untuk mengambil customer dengan nama tersebut, atau membuatnya jika belum ada
+    public Customer resolve(String customerName) {
+        String key = keyOf(customerName);
+
+        if (BLANK_NAME_KEY.equals(key)) {
+            throw new IllegalArgumentException("Nama customer harus diisi");
+        }
+
+        Optional<Customer> existing = customerRepository.findByCustomerKey(key);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        customerRepository.insertIfAbsent(key, customerName.strip(), LocalDateTime.now());
+        return customerRepository.findCurrentByCustomerKey(key)
+                .orElseThrow(() -> new IllegalStateException("Customer gagal disimpan"));
+    }
+
+    // Method untuk mencari customer berdasarkan nama (dinormalisasi)
+    public Optional<Customer> findByName(String customerName) {
+        return customerRepository.findByCustomerKey(keyOf(customerName));
+    }
+
+    // Method untuk menambahkan invoice yang baru selesai ke total customer
+    public void recordCompleted(SalesInvoice invoice) {
+
+        if (invoice.getCustomer() == null) {
+            invoice.setCustomer(resolve(invoice.getCustomerName()));
+        }
+
+        Customer customer = customerRepository.findForUpdate(invoice.getCustomer().getId())
+                .orElseThrow(() -> new IllegalStateException("Customer tidak ditemukan"));
+
+        customer.setInvoiceCount(customer.getInvoiceCount() + 1);
+        customer.setLifetimeSales(customer.getLifetimeSales().add(invoice.getTotalSales()));
+
+        LocalDateTime date = invoice.getInvoiceDate();
+        if (date != null && (customer.getLastPurchaseDate() == null
+                || date.isAfter(customer.getLastPurchaseDate()))) {
+            customer.setLastPurchaseDate(date);
+        }
+    }
+
+    // Method untuk mengambil total customer beserta daftar invoice-nya
+    public CustomerStatement getStatement(Long customerId) {
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new IllegalArgumentException("Customer tidak ditemukan"));
+
+        return new CustomerStatement(customer, salesInvoiceRepository
+                .findListViewsByCustomerId(customerId, Sort.by("invoiceDate").descending()));
+    }
+
+    // Hubungkan invoice lama ke customer: nama yang sama setelah normalisasi digabung
+    // menjadi satu customer, lalu total dihitung ulang dari invoice yang sudah selesai.
+    // Setiap batch commit di transaksinya sendiri, jadi riwayat besar tidak menjadi satu transaksi raksasa
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        while (Boolean.TRUE.equals(tx.execute(status -> backfillBatch()))) {
+            // lanjut ke batch berikutnya
+        }
+    }
+
+    // Satu batch nama yang belum terhubung; false jika sudah tidak ada lagi
+    private boolean backfillBatch() {
+
+        List<String> names = salesInvoiceRepository
+                .findUnlinkedCustomerNames(PageRequest.of(0, backfillBatchSize));
+
+        if (names.isEmpty()) {
+            return false;
+        }
+
+        Map<String, List<String>> namesByKey = new LinkedHashMap<>();
+        names.forEach(name -> namesByKey.computeIfAbsent(keyOf(name), k -> new ArrayList<>()).add(name));
+
+        LocalDateTime now = LocalDateTime.now();
+        namesByKey.forEach((key, group) -> customerRepository.insertIfAbsent(
+                key, BLANK_NAME_KEY.equals(key) ? BLANK_NAME_KEY : group.get(0).strip(), now));
+
+        List<Long> customerIds = new ArrayList<>();
+
+        for (Customer customer : customerRepository.findByCustomerKeyIn(namesByKey.keySet())) {
+            salesInvoiceRepository.linkCustomer(customer, namesByKey.get(customer.getCustomerKey()));
+            customerIds.add(customer.getId());
+        }
+
+        customerRepository.recalculateTotals(customerIds, SalesStatus.COMPLETED);
+
+        return true;
+    }
+
+    static String keyOf(String customerName) {
+        String key = SupplierDirectory.normalize(customerName);
+        return key.isEmpty() ? BLANK_NAME_KEY : key;
+    }
+}
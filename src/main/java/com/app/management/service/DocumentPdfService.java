@@ -0,0 +1,389 @@
+package com.app.management.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.purchase.Purchase;
+import com.app.management.model.purchase.PurchaseDetails;
+import com.app.management.model.purchase.PurchaseStatus;
+import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.model.sales.SalesInvoice;
+import com.app.management.model.sales.SalesStatus;
+import com.app.management.repository.PurchaseRepository;
+import com.app.management.repository.SalesInvoiceRepository;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+@Service
+public class DocumentPdfService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentPdfService.class);
+
+    // Font dimuat sekali dan dipakai ulang oleh semua proses render
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
+    private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11);
+    private static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private static final Font RECEIPT_TITLE_FONT = FontFactory.getFont(FontFactory.COURIER_BOLD, 10);
+    private static final Font RECEIPT_FONT = FontFactory.getFont(FontFactory.COURIER, 8);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    // Lebar kertas struk 80mm dalam satuan point (1mm = 72 / 25.4 pt)
+    private static final float RECEIPT_WIDTH = 80 * 72 / 25.4f;
+
+    private static final float[] INVOICE_COLUMNS = { 4f, 1.2f, 2f, 2f };
+    private static final float[] RECEIPT_COLUMNS = { 3f, 2f };
+
+    @Autowired
+    private SalesInvoiceRepository salesInvoiceRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Value("${app.document.render-threads:2}")
+    private int renderThreads;
+
+    @Value("${app.document.render-queue:32}")
+    private int renderQueue;
+
+    @Value("${app.document.render-timeout-seconds:30}")
+    private long renderTimeoutSeconds;
+
+    @Value("${app.document.cache-dir:${java.io.tmpdir}/management-documents}")
+    private Path cacheDir;
+
+    private ThreadPoolExecutor renderPool;
+
+    @PostConstruct
+    void init() throws IOException {
+        AtomicInteger counter = new AtomicInteger();
+
+        renderPool = new ThreadPoolExecutor(
+                renderThreads,
+                renderThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(renderQueue),
+                r -> {
+                    Thread t = new Thread(r, "pdf-render-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Files.createDirectories(cacheDir);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdown();
+    }
+
+    // Kunci cache ditentukan dari status dokumen saja; invoice / purchase beserta detailnya
+    // hanya dimuat jika PDF belum ada di cache, jadi cetak ulang cukup membaca file
+
+    // Method untuk menghasilkan PDF invoice penjualan (A4)
+    public byte[] renderInvoicePdf(Long id) {
+        byte[] cached = readCached("invoice-" + id + "-" + invoiceStatus(id));
+        if (cached != null) {
+            return cached;
+        }
+
+        SalesInvoice invoice = loadInvoice(id);
+        return renderCached(
+                "invoice-" + id + "-" + invoice.getSalesStatus(),
+                isFinal(invoice.getSalesStatus()),
+                () -> writeInvoice(invoice));
+    }
+
+    // Method untuk menghasilkan struk penjualan dengan lebar kertas 80mm
+    public byte[] renderReceiptPdf(Long id) {
+        byte[] cached = readCached("receipt-" + id + "-" + invoiceStatus(id));
+        if (cached != null) {
+            return cached;
+        }
+
+        SalesInvoice invoice = loadInvoice(id);
+        return renderCached(
+                "receipt-" + id + "-" + invoice.getSalesStatus(),
+                isFinal(invoice.getSalesStatus()),
+                () -> writeReceipt(invoice));
+    }
+
+    // Method untuk menghasilkan PDF purchase order (A4)
+    public byte[] renderPurchasePdf(Long id) {
+        PurchaseStatus status = purchaseRepository.findStatusById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Purchase tidak ditemukan"));
+
+        byte[] cached = readCached("purchase-" + id + "-" + status);
+        if (cached != null) {
+            return cached;
+        }
+
+        Purchase purchase = purchaseRepository.findWithDetailsById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Purchase tidak ditemukan"));
+
+        return renderCached(
+                "purchase-" + id + "-" + purchase.getStatus(),
+                purchase.getStatus() != PurchaseStatus.CREATED,
+                () -> writePurchase(purchase));
+    }
+
+    private SalesStatus invoiceStatus(Long id) {
+        return salesInvoiceRepository.findSalesStatusById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Invoice tidak ditemukan"));
+    }
+
+    private SalesInvoice loadInvoice(Long id) {
+        return salesInvoiceRepository.findWithDetailsById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Invoice tidak ditemukan"));
+    }
+
+    private boolean isFinal(SalesStatus status) {
+        return status == SalesStatus.COMPLETED || status == SalesStatus.CANCELLED;
+    }
+
+    // Hanya dokumen final yang pernah disimpan, jadi file yang ada selalu boleh dipakai
+    private byte[] readCached(String key) {
+        Path file = cacheDir.resolve(key + ".pdf");
+
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            // file rusak / terhapus di tengah jalan, render ulang
+            return null;
+        }
+    }
+
+    // Dokumen yang statusnya sudah final tidak akan berubah lagi, jadi hasil render
+    // disimpan di disk dan cetak ulang cukup membaca file tersebut. Kunci dihitung ulang dari
+    // dokumen yang dimuat, karena statusnya bisa berubah setelah status dibaca
+    private byte[] renderCached(String key, boolean cacheable, Callable<byte[]> renderer) {
+        if (cacheable) {
+            byte[] cached = readCached(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        byte[] pdf = submit(renderer);
+
+        if (cacheable) {
+            Path file = cacheDir.resolve(key + ".pdf");
+
+            try {
+                Path tmp = Files.createTempFile(cacheDir, key, ".tmp");
+                Files.write(tmp, pdf);
+                Files.move(tmp, file,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // PDF tetap dikirim; cetak berikutnya cukup merender ulang
+                log.warn("Gagal menyimpan cache dokumen {}", key, e);
+            }
+        }
+
+        return pdf;
+    }
+
+    private byte[] submit(Callable<byte[]> renderer) {
+        Future<byte[]> future;
+
+        try {
+            future = renderPool.submit(renderer);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Server sedang sibuk mencetak dokumen, coba lagi sebentar");
+        }
+
+        try {
+            return future.get(renderTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new IllegalStateException("Waktu render dokumen habis");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Render dokumen dibatalkan");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Gagal membuat dokumen: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private byte[] writeInvoice(SalesInvoice invoice) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, out);
+
+        document.open();
+
+        document.add(new Paragraph("INVOICE PENJUALAN", TITLE_FONT));
+        document.add(new Paragraph("No. Invoice: " + invoice.getInvoiceNumber(), NORMAL_FONT));
+        document.add(new Paragraph("Customer: " + invoice.getCustomerName(), NORMAL_FONT));
+        document.add(new Paragraph("Tanggal: " + formatDate(invoice), NORMAL_FONT));
+        document.add(new Paragraph("Status: " + invoice.getSalesStatus(), NORMAL_FONT));
+        document.add(Chunk.NEWLINE);
+
+        PdfPTable table = new PdfPTable(INVOICE_COLUMNS);
+        table.setWidthPercentage(100);
+
+        addHeader(table, "Produk", "Qty", "Harga", "Subtotal");
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (InvoiceDetails d : invoice.getInvoiceDetails()) {
+            table.addCell(new Phrase(d.getProduct().getProductName(), NORMAL_FONT));
+            table.addCell(new Phrase(String.valueOf(d.getQuantity()), NORMAL_FONT));
+            table.addCell(new Phrase("Rp " + d.getUnitSellingPrice(), NORMAL_FONT));
+            table.addCell(new Phrase("Rp " + d.getSubtotal(), NORMAL_FONT));
+            subtotal = subtotal.add(d.getSubtotal());
+        }
+
+        document.add(table);
+        document.add(Chunk.NEWLINE);
+
+        document.add(new Paragraph("Subtotal: Rp " + subtotal, NORMAL_FONT));
+        document.add(new Paragraph("Pajak: " + invoice.getVatPercentage() + "%", NORMAL_FONT));
+        document.add(new Paragraph("Total: Rp " + invoice.getTotalSales(), HEADER_FONT));
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    private byte[] writePurchase(Purchase purchase) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, out);
+
+        document.open();
+
+        document.add(new Paragraph("PURCHASE ORDER", TITLE_FONT));
+        document.add(new Paragraph("No. Referensi: " + purchase.getReferenceNumber(), NORMAL_FONT));
+        document.add(new Paragraph("Supplier: " + purchase.getSupplier().getSupplierName(), NORMAL_FONT));
+        document.add(new Paragraph("Alamat: " + purchase.getSupplier().getAddress(), NORMAL_FONT));
+        document.add(new Paragraph("Tanggal: "
+                + (purchase.getPurchaseDate() == null ? "-" : purchase.getPurchaseDate().format(DATE_FORMAT)),
+                NORMAL_FONT));
+        document.add(new Paragraph("Status: " + purchase.getStatus(), NORMAL_FONT));
+        document.add(Chunk.NEWLINE);
+
+        PdfPTable table = new PdfPTable(INVOICE_COLUMNS);
+        table.setWidthPercentage(100);
+
+        addHeader(table, "Produk", "Qty", "Harga Beli", "Subtotal");
+
+        for (PurchaseDetails d : purchase.getPurchaseDetails()) {
+            table.addCell(new Phrase(d.getProduct().getProductName(), NORMAL_FONT));
+            table.addCell(new Phrase(String.valueOf(d.getQuantity()), NORMAL_FONT));
+            table.addCell(new Phrase("Rp " + d.getUnitPurchasePrice(), NORMAL_FONT));
+            table.addCell(new Phrase("Rp " + d.getSubtotal(), NORMAL_FONT));
+        }
+
+        document.add(table);
+        document.add(Chunk.NEWLINE);
+        document.add(new Paragraph("Total Pembelian: Rp " + purchase.getTotalPurchase(), HEADER_FONT));
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    private byte[] writeReceipt(SalesInvoice invoice) {
+        // Tinggi kertas menyesuaikan jumlah baris agar struk tidak terpotong / menyisakan ruang kosong
+        float height = 200 + invoice.getInvoiceDetails().size() * 28f;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(new Rectangle(RECEIPT_WIDTH, height), 8, 8, 10, 10);
+        PdfWriter.getInstance(document, out);
+
+        document.open();
+
+        Paragraph title = new Paragraph("STRUK PENJUALAN", RECEIPT_TITLE_FONT);
+        title.setAlignment(Element.ALIGN_CENTER);
+        document.add(title);
+
+        document.add(new Paragraph(invoice.getInvoiceNumber(), RECEIPT_FONT));
+        document.add(new Paragraph(formatDate(invoice), RECEIPT_FONT));
+        document.add(new Paragraph("Customer: " + invoice.getCustomerName(), RECEIPT_FONT));
+        document.add(new Paragraph("--------------------------------", RECEIPT_FONT));
+
+        PdfPTable table = new PdfPTable(RECEIPT_COLUMNS);
+        table.setWidthPercentage(100);
+        table.getDefaultCell().setBorder(Rectangle.NO_BORDER);
+
+        for (InvoiceDetails d : invoice.getInvoiceDetails()) {
+            PdfPCell name = new PdfPCell(new Phrase(d.getProduct().getProductName(), RECEIPT_FONT));
+            name.setColspan(2);
+            name.setBorder(Rectangle.NO_BORDER);
+            table.addCell(name);
+
+            table.addCell(new Phrase(d.getQuantity() + " x " + d.getUnitSellingPrice(), RECEIPT_FONT));
+            PdfPCell subtotal = new PdfPCell(new Phrase(String.valueOf(d.getSubtotal()), RECEIPT_FONT));
+            subtotal.setHorizontalAlignment(Element.ALIGN_RIGHT);
+            subtotal.setBorder(Rectangle.NO_BORDER);
+            table.addCell(subtotal);
+        }
+
+        document.add(table);
+        document.add(new Paragraph("--------------------------------", RECEIPT_FONT));
+        document.add(new Paragraph("Pajak: " + invoice.getVatPercentage() + "%", RECEIPT_FONT));
+
+        Paragraph total = new Paragraph("TOTAL: Rp " + invoice.getTotalSales(), RECEIPT_TITLE_FONT);
+        total.setAlignment(Element.ALIGN_RIGHT);
+        document.add(total);
+
+        Paragraph footer = new Paragraph("Terima kasih", RECEIPT_FONT);
+        footer.setAlignment(Element.ALIGN_CENTER);
+        document.add(footer);
+
+        document.close();
+        return out.toByteArray();
+    }
+
+    private void addHeader(PdfPTable table, String... headers) {
+        for (String header : headers) {
+            table.addCell(new Phrase(header, HEADER_FONT));
+        }
+        table.setHeaderRows(1);
+    }
+
+    private String formatDate(SalesInvoice invoice) {
+        return invoice.getInvoiceDate() == null
+                ? "-"
+                : invoice.getInvoiceDate().format(DATE_FORMAT);
+    }
+}
@@ -0,0 +1,97 @@
+package com.app.management.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+// Akses ke second-level cache Hibernate: eviction untuk perubahan yang ditulis lewat JDBC
+// (tidak terlihat oleh Hibernate) dan statistik hit / miss per region
+@Service
+public class EntityCacheService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public record RegionStats(String region, long hits, long misses, long puts) {
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    // Method untuk membuang entity tertentu dari cache setelah baris tabelnya diubah lewat JDBC.
+    // Dibuang sekarang dan sekali lagi setelah commit, supaya nilai lama yang sempat dibaca
+    // transaksi lain selama transaksi ini berjalan tidak tertinggal di cache
+    public void evictAfterCommit(Class<?> entityClass, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Set<Long> copy = Set.copyOf(ids);
+        Runnable evict = () -> {
+            Cache cache = entityManagerFactory.getCache();
+            copy.forEach(id -> cache.evict(entityClass, id));
+        };
+
+        evict.run();
+        afterCommit(evict);
+    }
+
+    // Method untuk membuang seluruh entity satu jenis dari cache (perubahan massal lewat JDBC)
+    public void evictAllAfterCommit(Class<?> entityClass) {
+        Runnable evict = () -> entityManagerFactory.getCache().evict(entityClass);
+
+        evict.run();
+        afterCommit(evict);
+    }
+
+    // Method untuk membuang isi koleksi satu entity dari cache (baris anak di-insert lewat JDBC)
+    public void evictCollectionAfterCommit(Class<?> ownerClass, String property, Long ownerId) {
+        String role = ownerClass.getName() + "." + property;
+        Runnable evict = () -> entityManagerFactory.getCache()
+                .unwrap(org.hibernate.Cache.class)
+                .evictCollectionData(role, ownerId);
+
+        evict.run();
+        afterCommit(evict);
+    }
+
+    // Method untuk mengambil statistik hit / miss / put setiap region cache
+    public List<RegionStats> getStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> {
+                    CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+                    return new RegionStats(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount());
+                })
+                .toList();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
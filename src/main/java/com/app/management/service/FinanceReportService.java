@@ -2,6 +2,7 @@ package com.app.management.service;
 
 import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -15,6 +16,7 @@ import com.app.management.model.purchase.Purchase;
 import com.app.management.model.purchase.PurchaseStatus;
 import com.app.management.model.sales.SalesInvoice;
 import com.app.management.model.sales.SalesStatus;
+import com.app.management.repository.ProductRepository;
 import com.app.management.repository.PurchaseRepository;
 import com.app.management.repository.SalesInvoiceRepository;
 
@@ -36,6 +38,9 @@ public class FinanceReportService {
         @Autowired
         private PurchaseRepository purchaseRepository;
 
+        @Autowired
+        private ProductRepository productRepository;
+
         // Method untuk mengambil data ringkasan laporan keuangan berdasarkan rentang tanggal
         public Map<String, Object> getPreviewData(LocalDate start, LocalDate end) {
 
@@ -74,6 +79,17 @@ public class FinanceReportService {
                 map.put("incomeCount", incomes.size());
                 map.put("expenseCount", expenses.size());
 
+                // Margin dan valuasi dari harga pokok rata-rata yang sudah dihitung saat transaksi
+                BigDecimal revenue = salesInvoiceRepository.sumRevenue(SalesStatus.COMPLETED, startDT, endDT);
+                BigDecimal costOfSales = salesInvoiceRepository.sumCostOfSales(SalesStatus.COMPLETED, startDT, endDT)
+                                .setScale(2, RoundingMode.HALF_UP);
+
+                map.put("revenue", revenue);
+                map.put("costOfSales", costOfSales);
+                map.put("grossMargin", revenue.subtract(costOfSales));
+                map.put("inventoryValue", productRepository.sumInventoryValue()
+                                .setScale(2, RoundingMode.HALF_UP));
+
                 return map;
         }
 
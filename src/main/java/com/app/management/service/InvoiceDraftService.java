@@ -0,0 +1,261 @@
+package com.app.management.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductCodeView;
+import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.model.sales.InvoiceDraft;
+import com.app.management.model.sales.InvoiceDraftLine;
+import com.app.management.model.sales.SalesInvoice;
+
+// Draft invoice yang diedit per baris lewat request JSON kecil. Harga diambil dari index kode
+// produk di memori, dan total dihitung dari selisih baris yang berubah saja. Saat difinalisasi,
+// draft diubah menjadi SalesInvoice dan disimpan lewat createInvoice (harga dihitung ulang di sana)
+@Service
+public class InvoiceDraftService {
+
+    @Autowired
+    private InvoiceDraftStore invoiceDraftStore;
+
+    @Autowired
+    private ProductCodeIndex productCodeIndex;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Value("${app.invoice.draft.max-per-session:10}")
+    private int maxDrafts;
+
+    @Value("${app.invoice.draft.max-lines:500}")
+    private int maxLines;
+
+    public record DraftTotals(int lineCount, BigDecimal subtotal, BigDecimal vat, BigDecimal total) {
+    }
+
+    // line null berarti baris dihapus
+    public record LineResult(Long productId, InvoiceDraftLine line, DraftTotals totals) {
+    }
+
+    public record DraftView(
+            String id,
+            String customerName,
+            String invoiceNumber,
+            BigDecimal vatPercentage,
+            List<InvoiceDraftLine> lines,
+            DraftTotals totals) {
+    }
+
+    // Method untuk membuat draft invoice kosong
+    public DraftView create() {
+        InvoiceDraft draft = invoiceDraftStore.create(maxDrafts);
+        return view(draft);
+    }
+
+    // Method untuk mengambil isi lengkap draft
+    public DraftView get(String draftId) {
+        InvoiceDraft draft = find(draftId);
+
+        synchronized (draft) {
+            return view(draft);
+        }
+    }
+
+    // Method untuk mengambil semua draft milik session ini
+    public List<DraftView> getAll() {
+        return invoiceDraftStore.findAll().stream()
+                .map(draft -> {
+                    synchronized (draft) {
+                        return view(draft);
+                    }
+                })
+                .toList();
+    }
+
+    // Method untuk mengubah data customer / no. invoice / pajak draft
+    public DraftTotals updateHeader(String draftId, String customerName, String invoiceNumber,
+            BigDecimal vatPercentage) {
+
+        if (vatPercentage != null
+                && (vatPercentage.signum() < 0 || vatPercentage.compareTo(BigDecimal.valueOf(100)) > 0)) {
+            throw new IllegalArgumentException("Pajak harus antara 0 dan 100");
+        }
+
+        InvoiceDraft draft = find(draftId);
+
+        synchronized (draft) {
+            draft.setCustomerName(customerName);
+            draft.setInvoiceNumber(invoiceNumber);
+            draft.setVatPercentage(vatPercentage == null ? BigDecimal.ZERO : vatPercentage);
+
+            return totals(draft);
+        }
+    }
+
+    // Method untuk menambah produk ke draft (berdasarkan id atau kode hasil scan);
+    // produk yang sudah ada di draft ditambah quantity-nya
+    public LineResult addLine(String draftId, Long productId, String productCode, Integer quantity) {
+
+        validateQuantity(quantity);
+
+        ProductCodeView product = (productId != null
+                ? productCodeIndex.find(productId)
+                : productCodeIndex.find(productCode))
+                .orElseThrow(() -> new IllegalArgumentException("Produk tidak ditemukan atau tidak aktif"));
+
+        InvoiceDraft draft = find(draftId);
+
+        synchronized (draft) {
+            InvoiceDraftLine current = draft.getLines().get(product.id());
+
+            if (current == null && draft.getLines().size() >= maxLines) {
+                throw new IllegalStateException("Maksimal " + maxLines + " produk per invoice");
+            }
+
+            int total = current == null ? quantity : current.quantity() + quantity;
+            return put(draft, product, total);
+        }
+    }
+
+    // Method untuk mengubah quantity satu baris; harga ikut diperbarui dari harga jual saat ini
+    public LineResult updateLine(String draftId, Long productId, Integer quantity) {
+
+        validateQuantity(quantity);
+
+        InvoiceDraft draft = find(draftId);
+
+        synchronized (draft) {
+            if (!draft.getLines().containsKey(productId)) {
+                throw new IllegalArgumentException("Produk tidak ada di draft");
+            }
+
+            ProductCodeView product = productCodeIndex.find(productId)
+                    .orElseThrow(() -> new IllegalArgumentException("Produk sudah tidak aktif"));
+
+            return put(draft, product, quantity);
+        }
+    }
+
+    // Method untuk menghapus satu baris dari draft
+    public LineResult removeLine(String draftId, Long productId) {
+        InvoiceDraft draft = find(draftId);
+
+        synchronized (draft) {
+            InvoiceDraftLine removed = draft.getLines().remove(productId);
+
+            if (removed != null) {
+                draft.setSubtotal(draft.getSubtotal().subtract(removed.subtotal()));
+            }
+
+            return new LineResult(productId, null, totals(draft));
+        }
+    }
+
+    // Method untuk menghapus draft tanpa membuat invoice
+    public void discard(String draftId) {
+        invoiceDraftStore.remove(draftId);
+    }
+
+    // Method untuk mengubah draft menjadi invoice berstatus CREATED
+    public SalesInvoice finalizeDraft(String draftId) {
+        InvoiceDraft draft = find(draftId);
+
+        SalesInvoice invoice = new SalesInvoice();
+
+        synchronized (draft) {
+            if (draft.getLines().isEmpty()) {
+                throw new IllegalStateException("Invoice harus memiliki minimal 1 produk");
+            }
+
+            if (isBlank(draft.getCustomerName()) || isBlank(draft.getInvoiceNumber())) {
+                throw new IllegalStateException("Nama customer dan no. invoice wajib diisi");
+            }
+
+            invoice.setCustomerName(draft.getCustomerName());
+            invoice.setInvoiceNumber(draft.getInvoiceNumber());
+            invoice.setVatPercentage(draft.getVatPercentage());
+
+            for (InvoiceDraftLine line : draft.getLines().values()) {
+                Product product = new Product();
+                product.setId(line.productId());
+
+                InvoiceDetails detail = new InvoiceDetails();
+                detail.setProduct(product);
+                detail.setQuantity(line.quantity());
+                invoice.addInvoiceDetail(detail);
+            }
+        }
+
+        SalesInvoice saved = invoiceService.createInvoice(invoice);
+        invoiceDraftStore.remove(draftId);
+
+        return saved;
+    }
+
+    // Ganti baris lalu koreksi subtotal berjalan dengan selisih subtotal baris lama dan baru
+    private LineResult put(InvoiceDraft draft, ProductCodeView product, int quantity) {
+        BigDecimal unitPrice = product.standardSellingPrice();
+        if (unitPrice == null) {
+            throw new IllegalStateException(
+                    "Harga jual belum ditentukan untuk produk: " + product.productName());
+        }
+
+        InvoiceDraftLine line = new InvoiceDraftLine(
+                product.id(),
+                product.productCode(),
+                product.productName(),
+                unitPrice,
+                quantity,
+                unitPrice.multiply(BigDecimal.valueOf(quantity)));
+
+        InvoiceDraftLine old = draft.getLines().put(product.id(), line);
+
+        draft.setSubtotal(draft.getSubtotal()
+                .add(line.subtotal())
+                .subtract(old == null ? BigDecimal.ZERO : old.subtotal()));
+
+        return new LineResult(product.id(), line, totals(draft));
+    }
+
+    // Rumus pajak sama dengan createInvoice
+    private DraftTotals totals(InvoiceDraft draft) {
+        BigDecimal subtotal = draft.getSubtotal();
+        BigDecimal vat = BigDecimal.ZERO;
+
+        if (draft.getVatPercentage() != null && draft.getVatPercentage().signum() > 0) {
+            vat = subtotal.multiply(draft.getVatPercentage()).divide(BigDecimal.valueOf(100));
+        }
+
+        return new DraftTotals(draft.getLines().size(), subtotal, vat, subtotal.add(vat));
+    }
+
+    private DraftView view(InvoiceDraft draft) {
+        return new DraftView(
+                draft.getId(),
+                draft.getCustomerName(),
+                draft.getInvoiceNumber(),
+                draft.getVatPercentage(),
+                List.copyOf(draft.getLines().values()),
+                totals(draft));
+    }
+
+    private InvoiceDraft find(String draftId) {
+        return invoiceDraftStore.find(draftId)
+                .orElseThrow(() -> new IllegalArgumentException("Draft invoice tidak ditemukan"));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void validateQuantity(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity harus lebih dari 0");
+        }
+    }
+}
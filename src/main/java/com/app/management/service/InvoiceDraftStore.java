@@ -0,0 +1,46 @@
+package com.app.management.service;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.SessionScope;
+
+import com.app.management.model.sales.InvoiceDraft;
+
+// Draft invoice milik satu session login; hilang bersama session-nya
+@Component
+@SessionScope
+public class InvoiceDraftStore implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LinkedHashMap<String, InvoiceDraft> drafts = new LinkedHashMap<>();
+
+    // Method untuk membuat draft baru, ditolak jika session sudah memegang terlalu banyak draft
+    public synchronized InvoiceDraft create(int maxDrafts) {
+        if (drafts.size() >= maxDrafts) {
+            throw new IllegalStateException(
+                    "Maksimal " + maxDrafts + " draft invoice, selesaikan atau hapus draft lain dulu");
+        }
+
+        InvoiceDraft draft = new InvoiceDraft(UUID.randomUUID().toString());
+        drafts.put(draft.getId(), draft);
+        return draft;
+    }
+
+    public synchronized Optional<InvoiceDraft> find(String id) {
+        return Optional.ofNullable(drafts.get(id));
+    }
+
+    public synchronized List<InvoiceDraft> findAll() {
+        return List.copyOf(drafts.values());
+    }
+
+    public synchronized void remove(String id) {
+        drafts.remove(id);
+    }
+}
@@ -1,21 +1,33 @@
 package com.app.management.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.Map;
 import java.math.BigDecimal;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
+import com.app.management.repository.CustomerRepository;
 import com.app.management.repository.SalesInvoiceRepository;
 import com.app.management.repository.ProductRepository;
 
 import com.app.management.model.product.Product;
 import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.model.sales.InvoiceListView;
 import com.app.management.model.sales.SalesInvoice;
 import com.app.management.model.sales.SalesStatus;
+import com.app.management.service.stock.StockEngine;
 
 import jakarta.transaction.Transactional;
 
@@ -28,6 +40,34 @@ public class InvoiceService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductCostService productCostService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Value("${app.sales.bulk-complete-max:200}")
+    private int bulkCompleteMax;
+
+    @Value("${app.sales.search-max-results:500}")
+    private int searchMaxResults;
+
+    // Hasil penyelesaian massal: no. invoice yang selesai, dan alasan penolakan per invoice
+    public record BulkCompleteResult(List<String> completed, Map<String, String> rejected) {
+    }
+
     // Method untuk mengambil seluruh invoice tanpa filter
     public List<SalesInvoice> getAllInvoices() {
         return salesInvoiceRepository.findAll();
@@ -102,8 +142,12 @@ public class InvoiceService {
 
         invoice.setTotalSales(total);
         invoice.setSalesStatus(SalesStatus.CREATED);
+        invoice.setCustomer(customerService.resolve(invoice.getCustomerName()));
+
+        SalesInvoice saved = salesInvoiceRepository.save(invoice);
+        stockReservationService.reserve(saved);
 
-        return salesInvoiceRepository.save(invoice);
+        return saved;
     }
 
     // Method untuk menyelesaikan invoice dan mengurangi stok produk terkait
@@ -117,11 +161,35 @@ public class InvoiceService {
                     "Invoice tidak valid untuk diselesaikan");
         }
 
+        // Quantity per produk yang harus dikurangi, dan bagian yang sudah ditahan oleh invoice ini
+        Map<Long, Integer> required = new LinkedHashMap<>();
+        invoice.getInvoiceDetails()
+                .forEach(d -> required.merge(d.getProduct().getId(), d.getQuantity(), Integer::sum));
+
+        Map<Long, Integer> own = stockReservationService.consume(invoice);
+
+        // Kecepatan penjualan baru diperbarui setelah commit
+        reorderService.recordSales(required);
+        customerService.recordCompleted(invoice);
+
+        // Catat harga pokok per baris; quantity yang dinilai dikurangi lewat delta atomik
+        productCostService.issue(invoice.getInvoiceDetails());
+
+        if (stockEngine.isEnabled()) {
+            deductThroughEngine(invoice.getInvoiceDetails(), required, own);
+            invoice.setSalesStatus(SalesStatus.COMPLETED);
+            return;
+        }
+
         for (InvoiceDetails d : invoice.getInvoiceDetails()) {
 
             Product p = d.getProduct();
+            Integer quantity = required.remove(p.getId());
 
-            if (p.getCurrentStock() < d.getQuantity()) {
+            // Stok yang ditahan invoice lain tidak boleh ikut terpakai
+            if (quantity != null
+                    && stockReservationService.getAvailableStock(p)
+                            + own.getOrDefault(p.getId(), 0) < quantity) {
                 throw new IllegalStateException(
                         "Stok tidak cukup: " + p.getProductName());
             }
@@ -133,6 +201,185 @@ public class InvoiceService {
         invoice.setSalesStatus(SalesStatus.COMPLETED);
     }
 
+    // Method untuk menyelesaikan banyak invoice sekaligus (mis. akhir shift). Invoice dan detailnya
+    // dimuat dalam satu query, kebutuhan stok dijumlahkan per produk dan stok tersedia dicek sekali
+    // per produk. Invoice yang tidak valid atau stoknya tidak cukup ditolak tanpa menggagalkan
+    // invoice lain; tanpa stock engine stok invoice yang diterima dikurangi sekali per produk
+    @Transactional
+    public BulkCompleteResult completeSalesBulk(Collection<Long> ids) {
+
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Pilih minimal 1 invoice");
+        }
+
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > bulkCompleteMax) {
+            throw new IllegalArgumentException(
+                    "Maksimal " + bulkCompleteMax + " invoice sekaligus");
+        }
+
+        List<SalesInvoice> invoices = salesInvoiceRepository.findWithDetailsByIdIn(uniqueIds);
+        Map<String, String> rejected = new LinkedHashMap<>();
+
+        Set<Long> found = invoices.stream().map(SalesInvoice::getId).collect(Collectors.toSet());
+        uniqueIds.stream()
+                .filter(id -> !found.contains(id))
+                .forEach(id -> rejected.put("#" + id, "Invoice tidak ditemukan"));
+
+        List<SalesInvoice> created = new ArrayList<>();
+        for (SalesInvoice invoice : invoices) {
+            if (invoice.getSalesStatus() == SalesStatus.CREATED) {
+                created.add(invoice);
+            } else {
+                rejected.put(invoice.getInvoiceNumber(), "Invoice tidak valid untuk diselesaikan");
+            }
+        }
+
+        Map<Long, Map<Long, Integer>> holds = stockReservationService
+                .getHolds(created.stream().map(SalesInvoice::getId).toList());
+
+        // Sisa stok tersedia per produk (stok dikurangi seluruh tahanan), dibaca sekali per produk
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Integer> remaining = new HashMap<>();
+
+        // Kebutuhan per produk setiap invoice yang lolos cek stok
+        Map<SalesInvoice, Map<Long, Integer>> needs = new LinkedHashMap<>();
+
+        for (SalesInvoice invoice : created) {
+
+            Map<Long, Integer> need = new LinkedHashMap<>();
+            invoice.getInvoiceDetails().forEach(d -> {
+                products.putIfAbsent(d.getProduct().getId(), d.getProduct());
+                need.merge(d.getProduct().getId(), d.getQuantity(), Integer::sum);
+            });
+
+            Map<Long, Integer> held = holds.getOrDefault(invoice.getId(), Map.of());
+
+            // Tahanan milik invoice ini boleh dipakai, tahanan invoice lain tidak
+            Product shortage = null;
+            for (Map.Entry<Long, Integer> e : need.entrySet()) {
+                Long productId = e.getKey();
+                int available = remaining.computeIfAbsent(productId,
+                        id -> stockReservationService.getAvailableStock(products.get(id)));
+
+                if (available + held.getOrDefault(productId, 0) < e.getValue()) {
+                    shortage = products.get(productId);
+                    break;
+                }
+            }
+
+            if (shortage != null) {
+                rejected.put(invoice.getInvoiceNumber(), "Stok tidak cukup: " + shortage.getProductName());
+                continue;
+            }
+
+            need.forEach((productId, quantity) ->
+                    remaining.merge(productId, held.getOrDefault(productId, 0) - quantity, Integer::sum));
+
+            needs.put(invoice, need);
+        }
+
+        // Dengan stock engine stok dikurangi per invoice: jika engine menolak satu invoice (mis. stok
+        // terpakai transaksi lain setelah dicek di atas), hanya perintah invoice itu yang dibatalkan
+        // dan invoice tersebut masuk daftar ditolak
+        if (stockEngine.isEnabled()) {
+            Iterator<Map.Entry<SalesInvoice, Map<Long, Integer>>> it = needs.entrySet().iterator();
+
+            while (it.hasNext()) {
+                Map.Entry<SalesInvoice, Map<Long, Integer>> e = it.next();
+                SalesInvoice invoice = e.getKey();
+
+                try {
+                    deductThroughEngine(invoice.getInvoiceDetails(), e.getValue(),
+                            holds.getOrDefault(invoice.getId(), Map.of()));
+                } catch (IllegalStateException ex) {
+                    rejected.put(invoice.getInvoiceNumber(), ex.getMessage());
+                    it.remove();
+                }
+            }
+        }
+
+        if (needs.isEmpty()) {
+            return new BulkCompleteResult(List.of(), rejected);
+        }
+
+        List<SalesInvoice> accepted = List.copyOf(needs.keySet());
+
+        // Gabungan kebutuhan invoice yang diterima
+        Map<Long, Integer> required = new LinkedHashMap<>();
+        needs.values().forEach(need -> need.forEach((productId, quantity) ->
+                required.merge(productId, quantity, Integer::sum)));
+
+        stockReservationService.consumeAll(accepted.stream().map(SalesInvoice::getId).toList());
+        reorderService.recordSales(required);
+
+        List<InvoiceDetails> details = new ArrayList<>();
+
+        for (SalesInvoice invoice : accepted) {
+            customerService.recordCompleted(invoice);
+            details.addAll(invoice.getInvoiceDetails());
+            invoice.setSalesStatus(SalesStatus.COMPLETED);
+        }
+
+        // Satu delta quantity dinilai per produk untuk seluruh invoice yang diterima
+        productCostService.issue(details);
+
+        if (!stockEngine.isEnabled()) {
+            // Satu pengurangan per produk; UPDATE produk dikirim dalam batch JDBC saat flush
+            required.forEach((productId, quantity) -> {
+                Product p = products.get(productId);
+                p.setCurrentStock(p.getCurrentStock() - quantity);
+            });
+        }
+
+        return new BulkCompleteResult(
+                accepted.stream().map(SalesInvoice::getInvoiceNumber).toList(),
+                rejected);
+    }
+
+    // Pengurangan stok lewat stock engine: bagian yang sudah ditahan di-commit, sisanya
+    // di-deduct dan tahanan berlebih dilepas. Jika salah satu produk gagal, produk yang sudah
+    // diproses dikembalikan lagi di transaksi yang sama; jika transaksi invoice di-rollback,
+    // engine sendiri yang membatalkan semua perintahnya
+    private void deductThroughEngine(List<InvoiceDetails> details,
+            Map<Long, Integer> required, Map<Long, Integer> own) {
+
+        Map<Long, String> names = new HashMap<>();
+        details.forEach(d -> names.put(d.getProduct().getId(), d.getProduct().getProductName()));
+
+        List<Runnable> undo = new ArrayList<>();
+
+        for (Map.Entry<Long, Integer> e : required.entrySet()) {
+
+            Long productId = e.getKey();
+            int quantity = e.getValue();
+            int held = own.getOrDefault(productId, 0);
+            int fromHold = Math.min(held, quantity);
+
+            try {
+                if (fromHold > 0) {
+                    stockEngine.commit(productId, fromHold);
+                    undo.add(() -> {
+                        stockEngine.restock(productId, fromHold);
+                        stockEngine.hold(productId, fromHold);
+                    });
+                }
+                if (quantity > fromHold) {
+                    stockEngine.deduct(productId, quantity - fromHold);
+                    undo.add(() -> stockEngine.restock(productId, quantity - fromHold));
+                }
+                if (held > fromHold) {
+                    stockEngine.release(productId, held - fromHold);
+                    undo.add(() -> stockEngine.hold(productId, held - fromHold));
+                }
+            } catch (IllegalStateException ex) {
+                undo.forEach(Runnable::run);
+                throw new IllegalStateException(
+                        ex.getMessage() + ": " + names.get(productId));
+            }
+        }
+    }
+
     // Method untuk membatalkan invoice dan mengembalikan stok jika sudah completed
     @Transactional
     public boolean cancelSales(Long id) {
@@ -148,13 +395,15 @@ public class InvoiceService {
         }
         salesInvoice.setSalesStatus(SalesStatus.CANCELLED);
         salesInvoiceRepository.save(salesInvoice);
+        stockReservationService.release(salesInvoice);
 
         return true;
     }
 
     // Method untuk mencari dan mengurutkan invoice berdasarkan keyword dan
-    // parameter sorting
-    public List<SalesInvoice> searchAndSort(
+    // parameter sorting (read-only, hasil berupa proyeksi). Keyword dicocokkan sebagai
+    // awalan no. invoice / nama customer supaya bisa memakai index
+    public List<InvoiceListView> searchAndSort(
             String keyword,
             String sort) {
 
@@ -174,14 +423,34 @@ public class InvoiceService {
                 sortOrder = Sort.by("invoiceDate").descending();
         }
 
+        // Dua pencarian yang masing-masing memakai index (awalan no. invoice, dan invoice milik
+        // customer dengan awalan kunci customer), digabung lalu dimuat lewat primary key.
+        // Satu query dengan OR melintasi LEFT JOIN tidak bisa memakai kedua index tersebut.
+        // Setiap lookup id dibatasi searchMaxResults, jadi awalan pendek tidak menghasilkan IN (...) tanpa batas
         if (keyword != null && !keyword.isBlank()) {
-            return salesInvoiceRepository
-                    .findByInvoiceNumberContainingIgnoreCaseOrCustomerNameContainingIgnoreCase(
-                            keyword,
-                            keyword,
-                            sortOrder);
+            PageRequest limit = PageRequest.of(0, searchMaxResults);
+
+            Set<Long> ids = new LinkedHashSet<>(
+                    salesInvoiceRepository.findIdsByInvoiceNumberPrefix(likePrefix(keyword.trim()), limit));
+
+            List<Long> customerIds = customerRepository.findIdsByCustomerKeyPrefix(
+                    likePrefix(CustomerService.keyOf(keyword)), limit);
+            if (!customerIds.isEmpty() && ids.size() < searchMaxResults) {
+                ids.addAll(salesInvoiceRepository.findIdsByCustomerIdIn(customerIds,
+                        PageRequest.of(0, searchMaxResults - ids.size())));
+            }
+
+            return ids.isEmpty() ? List.of()
+                    : salesInvoiceRepository.findListViewsByIdIn(ids, sortOrder);
         }
 
-        return salesInvoiceRepository.findAll(sortOrder);
+        return salesInvoiceRepository.findListViews(sortOrder);
+    }
+
+    // Awalan untuk LIKE dengan karakter wildcard di-escape ('!' sebagai escape)
+    private String likePrefix(String value) {
+        return value.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
     }
 }
@@ -14,6 +14,9 @@ public class LoginService {
     @Autowired
     private LoginRepository loginRepository;
 
+    @Autowired
+    private UserCounters userCounters;
+
     // Method untuk memproses autentikasi user berdasarkan username dan password
     public User loginUser(String name, String password) {
 
@@ -78,7 +81,10 @@ public class LoginService {
         user.setRole(Role.STAFF);
         user.setStatus(UserStatus.PENDING);
 
-        return loginRepository.save(user);
+        User saved = loginRepository.save(user);
+        userCounters.changedAfterCommit(null, UserStatus.PENDING);
+
+        return saved;
     }
 
     // Method untuk mengecek apakah session user masih valid (sudah login)
@@ -0,0 +1,136 @@
+package com.app.management.service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductCodeView;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.repository.ProductRepository;
+
+// Index kode produk aktif di memori untuk scan barcode di kasir. Kode dibandingkan dalam huruf
+// besar (sama dengan existsByProductCodeIgnoreCase), lookup cukup satu get di hash map.
+// Diperbarui setelah commit saat produk disimpan / diubah / disembunyikan
+@Component
+public class ProductCodeIndex {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private volatile Map<String, ProductCodeView> byCode = new ConcurrentHashMap<>();
+
+    // Kode terakhir per id produk, supaya kode lama ikut dihapus saat kode produk diubah
+    private volatile Map<Long, String> codeById = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    // Method untuk mencari produk aktif berdasarkan kode (tidak peka huruf besar / kecil)
+    public Optional<ProductCodeView> find(String productCode) {
+        if (productCode == null || productCode.isBlank()) {
+            return Optional.empty();
+        }
+
+        ensureLoaded();
+        return Optional.ofNullable(byCode.get(normalize(productCode)));
+    }
+
+    // Method untuk mencari produk aktif berdasarkan id
+    public Optional<ProductCodeView> find(Long productId) {
+        if (productId == null) {
+            return Optional.empty();
+        }
+
+        ensureLoaded();
+        String code = codeById.get(productId);
+        return code == null ? Optional.empty() : Optional.ofNullable(byCode.get(code));
+    }
+
+    // Method untuk memperbarui index dari produk yang disimpan, setelah transaksi commit
+    public void updateAfterCommit(Product product) {
+        afterCommit(() -> update(product));
+    }
+
+    // Method untuk membangun ulang index setelah perubahan massal (mis. ubah harga massal)
+    public void reloadAfterCommit() {
+        afterCommit(this::invalidate);
+    }
+
+    // Update dan invalidasi memakai monitor yang sama dengan rebuild: rebuild yang sedang berjalan
+    // (mungkin masih membaca harga lama) selesai dulu, baru index ditandai perlu dibangun ulang.
+    // Tanpa itu rebuild tersebut bisa menimpa loaded = false dan harga lama tetap dipakai
+    private synchronized void invalidate() {
+        loaded = false;
+    }
+
+    private synchronized void update(Product product) {
+        if (!loaded) {
+            return;
+        }
+
+        String oldCode = codeById.remove(product.getId());
+        if (oldCode != null) {
+            byCode.remove(oldCode);
+        }
+
+        if (product.getStatus() == ProductStatus.ACTIVE) {
+            put(byCode, codeById, new ProductCodeView(
+                    product.getId(),
+                    product.getProductCode(),
+                    product.getProductName(),
+                    product.getStandardSellingPrice()));
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            // Index baru dibangun terpisah lalu ditukar, jadi lookup tidak pernah melihat index setengah jadi
+            Map<String, ProductCodeView> next = new ConcurrentHashMap<>();
+            Map<Long, String> nextCodeById = new ConcurrentHashMap<>();
+            productRepository.findCodeViewsByStatus(ProductStatus.ACTIVE)
+                    .forEach(view -> put(next, nextCodeById, view));
+
+            byCode = next;
+            codeById = nextCodeById;
+            loaded = true;
+        }
+    }
+
+    private static void put(Map<String, ProductCodeView> index, Map<Long, String> codes, ProductCodeView view) {
+        String code = normalize(view.productCode());
+        index.put(code, view);
+        codes.put(view.id(), code);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String normalize(String productCode) {
+        return productCode.strip().toUpperCase(Locale.ROOT);
+    }
+}
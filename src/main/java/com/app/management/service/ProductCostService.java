@@ -0,0 +1,156 @@
+package com.app.management.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.product.CostChangeType;
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductCostHistory;
+import com.app.management.model.purchase.Purchase;
+import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.repository.ProductCostHistoryRepository;
+import com.app.management.service.stock.StockEngine;
+
+// Harga pokok rata-rata tertimbang per produk, dihitung inkremental:
+// avg baru = (avg * qty dinilai + harga * qty masuk) / (qty dinilai + qty masuk)
+@Service
+public class ProductCostService {
+
+    private static final int COST_SCALE = 4;
+
+    private static final String ISSUE_SQL =
+            "UPDATE product SET costed_quantity = costed_quantity - ? "
+                    + "WHERE id = ? AND average_cost IS NOT NULL";
+
+    @Autowired
+    private ProductCostHistoryRepository productCostHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    // Method untuk mencatat barang masuk dari purchase yang diselesaikan
+    public void receive(Purchase purchase, Product product, int quantity, BigDecimal unitCost) {
+        apply(purchase, product, quantity, unitCost, CostChangeType.RECEIPT);
+    }
+
+    // Method untuk membalik barang masuk dari purchase yang dibatalkan setelah selesai
+    public void reverse(Purchase purchase, Product product, int quantity, BigDecimal unitCost) {
+        apply(purchase, product, -quantity, unitCost, CostChangeType.REVERSAL);
+    }
+
+    // Method untuk mencatat barang keluar (penjualan) pada harga pokok rata-rata saat ini.
+    // Rata-rata tidak berubah, hanya quantity yang dinilai yang berkurang: dikirim sebagai delta
+    // atomik satu baris per produk, entity Product tidak diubah. Dengan stock engine aktif, delta
+    // dicatat ke journal engine di transaksi penjualan (tanpa row lock produk) dan ditulis ke
+    // product oleh writer setelah commit, bersama delta stok. Tanpa engine, update JDBC tidak terlihat
+    // oleh Hibernate sehingga entry cache Product yang tersentuh dibuang
+    public void issue(Collection<InvoiceDetails> details) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+
+        for (InvoiceDetails d : details) {
+            Product product = d.getProduct();
+            d.setUnitCost(currentCost(product));
+
+            // Produk yang belum punya harga pokok mulai dinilai dari stok saat purchase pertama
+            if (product.getAverageCost() != null) {
+                quantities.merge(product.getId(), d.getQuantity(), Integer::sum);
+            }
+        }
+
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        if (stockEngine.isEnabled()) {
+            stockEngine.issueCost(quantities);
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> rows.add(new Object[] { quantity, productId }));
+
+        jdbcTemplate.batchUpdate(ISSUE_SQL, rows);
+        entityCacheService.evictAfterCommit(Product.class, quantities.keySet());
+    }
+
+    // Quantity dan rata-rata dibaca ulang dari baris produk yang dikunci, karena penjualan
+    // mengubah costed_quantity lewat delta JDBC (nilai di entity / cache bisa sudah usang)
+    private void apply(Purchase purchase, Product product, int quantity, BigDecimal unitCost,
+            CostChangeType changeType) {
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT average_cost, costed_quantity, current_stock FROM product WHERE id = ? FOR UPDATE",
+                product.getId());
+
+        BigDecimal before = (BigDecimal) row.get("average_cost");
+        int onHand = ((Number) row.get("costed_quantity")).intValue();
+
+        // Produk lama (sebelum ada harga pokok rata-rata) mulai dari harga beli terakhir dan stok saat ini
+        if (before == null) {
+            before = currentCost(product);
+            onHand = ((Number) row.get("current_stock")).intValue();
+        }
+
+        before = before.setScale(COST_SCALE, RoundingMode.HALF_UP);
+        int after = onHand + quantity;
+
+        BigDecimal average;
+
+        if (after <= 0) {
+            // Tidak ada stok tersisa untuk dinilai: pertahankan rata-rata terakhir
+            average = before;
+        } else if (onHand <= 0) {
+            average = unitCost.setScale(COST_SCALE, RoundingMode.HALF_UP);
+        } else {
+            average = before.multiply(BigDecimal.valueOf(onHand))
+                    .add(unitCost.multiply(BigDecimal.valueOf(quantity)))
+                    .divide(BigDecimal.valueOf(after), COST_SCALE, RoundingMode.HALF_UP);
+        }
+
+        jdbcTemplate.update(
+                "UPDATE product SET average_cost = ?, costed_quantity = ? WHERE id = ?",
+                average,
+                after,
+                product.getId());
+
+        // Entity diselaraskan dengan nilai yang sama supaya flush ORM tidak menimpa dengan nilai lama
+        product.setAverageCost(average);
+        product.setCostedQuantity(after);
+
+        ProductCostHistory history = new ProductCostHistory();
+        history.setProduct(product);
+        history.setPurchase(purchase);
+        history.setChangeType(changeType);
+        history.setQuantity(quantity);
+        history.setUnitCost(unitCost);
+        history.setAverageCostBefore(before);
+        history.setAverageCostAfter(average);
+        history.setCostedQuantityAfter(after);
+
+        productCostHistoryRepository.save(history);
+    }
+
+    private BigDecimal currentCost(Product product) {
+        if (product.getAverageCost() != null) {
+            return product.getAverageCost();
+        }
+
+        BigDecimal lastPrice = product.getLastPurchasePrice();
+        return (lastPrice == null ? BigDecimal.ZERO : lastPrice).setScale(COST_SCALE, RoundingMode.HALF_UP);
+    }
+}
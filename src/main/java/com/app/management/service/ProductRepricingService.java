@@ -0,0 +1,216 @@
+package com.app.management.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.model.product.RepriceMode;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.transaction.Transactional;
+
+// Perubahan harga jual massal dalam satu UPDATE. Aturan "harga jual > harga beli terakhir"
+// ada di WHERE statement yang sama, jadi produk yang akan melanggar tidak ikut diubah
+// (dan tidak perlu dibaca satu per satu seperti updateProductInfo)
+@Service
+public class ProductRepricingService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductCodeIndex productCodeIndex;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Value("${app.product.reprice-preview-size:20}")
+    private int previewSize;
+
+    // Filter produk (semua opsional) dan rumus harga baru
+    public record RepriceRequest(
+            ProductStatus status,
+            String codePrefix,
+            String nameContains,
+            RepriceMode mode,
+            BigDecimal value) {
+    }
+
+    public record PriceChangeView(
+            String productCode,
+            String productName,
+            BigDecimal lastPurchasePrice,
+            BigDecimal currentPrice,
+            BigDecimal newPrice) {
+    }
+
+    // matched = cocok filter, updated = lolos aturan margin, rejected = ditolak aturan margin
+    public record RepriceResult(
+            long matched,
+            long updated,
+            long rejected,
+            boolean applied,
+            List<PriceChangeView> preview) {
+    }
+
+    // Method untuk menghitung dampak perubahan harga tanpa menyimpan apa pun
+    public RepriceResult preview(RepriceRequest request) {
+        validate(request);
+
+        long matched = count(request, false);
+        long allowed = count(request, true);
+
+        return new RepriceResult(matched, allowed, matched - allowed, false, sample(request));
+    }
+
+    // Method untuk menjalankan perubahan harga massal
+    @Transactional
+    public RepriceResult apply(RepriceRequest request) {
+        validate(request);
+
+        long matched = count(request, false);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Product> update = cb.createCriteriaUpdate(Product.class);
+        Root<Product> p = update.from(Product.class);
+
+        Expression<BigDecimal> newPrice = newPrice(cb, p, request);
+        update.set(p.<BigDecimal>get("standardSellingPrice"), newPrice);
+        update.set(p.<Long>get("changeSeq"), changeSequence.next());
+        update.where(guarded(cb, p, request, newPrice));
+
+        // Perubahan yang belum di-flush harus masuk dulu, dan entity yang sudah dimuat
+        // dibuang setelahnya karena UPDATE massal tidak memperbarui persistence context
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+
+        productCodeIndex.reloadAfterCommit();
+
+        return new RepriceResult(matched, updated, matched - updated, true, List.of());
+    }
+
+    private long count(RepriceRequest request, boolean withMarginRule) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> p = query.from(Product.class);
+
+        query.select(cb.count(p));
+        query.where(withMarginRule
+                ? guarded(cb, p, request, newPrice(cb, p, request))
+                : cb.and(filters(cb, p, request)));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<PriceChangeView> sample(RepriceRequest request) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PriceChangeView> query = cb.createQuery(PriceChangeView.class);
+        Root<Product> p = query.from(Product.class);
+
+        query.select(cb.construct(PriceChangeView.class,
+                p.get("productCode"),
+                p.get("productName"),
+                p.get("lastPurchasePrice"),
+                p.get("standardSellingPrice"),
+                newPrice(cb, p, request)));
+        query.where(cb.and(filters(cb, p, request)));
+        query.orderBy(cb.asc(p.get("productCode")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(previewSize)
+                .getResultList();
+    }
+
+    private Predicate guarded(CriteriaBuilder cb, Root<Product> p, RepriceRequest request,
+            Expression<BigDecimal> newPrice) {
+
+        Predicate[] filters = filters(cb, p, request);
+        Predicate[] all = new Predicate[filters.length + 1];
+        System.arraycopy(filters, 0, all, 0, filters.length);
+        all[filters.length] = cb.greaterThan(newPrice, p.<BigDecimal>get("lastPurchasePrice"));
+
+        return cb.and(all);
+    }
+
+    private Predicate[] filters(CriteriaBuilder cb, Root<Product> p, RepriceRequest request) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (request.status() != null) {
+            predicates.add(cb.equal(p.get("status"), request.status()));
+        }
+
+        if (request.codePrefix() != null && !request.codePrefix().isBlank()) {
+            predicates.add(cb.like(p.get("productCode"),
+                    escape(request.codePrefix().trim().toUpperCase(Locale.ROOT)) + "%", '!'));
+        }
+
+        if (request.nameContains() != null && !request.nameContains().isBlank()) {
+            predicates.add(cb.like(cb.lower(p.get("productName")),
+                    "%" + escape(request.nameContains().trim().toLowerCase(Locale.ROOT)) + "%", '!'));
+        }
+
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    // Harga baru dibulatkan 2 desimal di database, sama dengan skala kolom harga
+    private Expression<BigDecimal> newPrice(CriteriaBuilder cb, Root<Product> p, RepriceRequest request) {
+
+        BigDecimal factor = BigDecimal.ONE.add(request.value().divide(HUNDRED, 6, RoundingMode.HALF_UP));
+
+        Expression<BigDecimal> raw = switch (request.mode()) {
+            case PERCENT -> cb.prod(p.<BigDecimal>get("standardSellingPrice"), factor);
+            case ABSOLUTE -> cb.sum(p.<BigDecimal>get("standardSellingPrice"), request.value());
+            case COST_MARKUP -> cb.prod(p.<BigDecimal>get("lastPurchasePrice"), factor);
+        };
+
+        return cb.function("round", BigDecimal.class, raw, cb.literal(2));
+    }
+
+    private void validate(RepriceRequest request) {
+        if (request.mode() == null || request.value() == null) {
+            throw new IllegalArgumentException("Jenis dan nilai perubahan harga harus diisi");
+        }
+
+        switch (request.mode()) {
+            case PERCENT -> {
+                if (request.value().signum() == 0 || request.value().compareTo(HUNDRED.negate()) <= 0) {
+                    throw new IllegalArgumentException("Persentase harus lebih dari -100 dan tidak 0");
+                }
+            }
+            case ABSOLUTE -> {
+                if (request.value().signum() == 0) {
+                    throw new IllegalArgumentException("Nominal perubahan tidak boleh 0");
+                }
+            }
+            case COST_MARKUP -> {
+                if (request.value().signum() <= 0) {
+                    throw new IllegalArgumentException("Markup harus lebih dari 0%");
+                }
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+    }
+}
@@ -22,6 +22,15 @@ public class ProductService {
         @Autowired
         private ProductRepository productRepository;
 
+        @Autowired
+        private ReorderService reorderService;
+
+        @Autowired
+        private ProductCodeIndex productCodeIndex;
+
+        @Autowired
+        private RenderedPageCache renderedPageCache;
+
         // Method untuk mengambil satu product berdasarkan ID
         public Product getProductById(Long id) {
                 return productRepository.findById(id)
@@ -99,8 +108,16 @@ public class ProductService {
                 }
 
                 product.setStatus(ProductStatus.ACTIVE);
+                product.setOpeningStock(product.getCurrentStock());
 
-                return productRepository.save(product);
+                // Stok awal dinilai dengan harga beli yang diinput
+                product.setAverageCost(product.getLastPurchasePrice());
+                product.setCostedQuantity(product.getCurrentStock());
+
+                Product saved = productRepository.save(product);
+                productCodeIndex.updateAfterCommit(saved);
+
+                return saved;
         }
 
         // Method untuk memperbarui sebagian data product berdasarkan ID
@@ -122,6 +139,13 @@ public class ProductService {
                                         }
 
                                         if (newData.getProductName() != null) {
+
+                                                // Nama produk tampil di halaman dokumen yang di-cache
+                                                if (!newData.getProductName()
+                                                                .equals(existing.getProductName())) {
+                                                        renderedPageCache.clearAfterCommit();
+                                                }
+
                                                 existing.setProductName(
                                                                 newData.getProductName());
                                         }
@@ -140,6 +164,8 @@ public class ProductService {
                                                                 newData.getStandardSellingPrice());
                                         }
 
+                                        reorderService.refreshAfterCommit(List.of(id));
+                                        productCodeIndex.updateAfterCommit(existing);
                                         return existing;
                                 })
                                 .orElseThrow(() -> new RuntimeException("Product tidak ditemukan"));
@@ -199,6 +225,8 @@ public class ProductService {
                                 .orElseThrow(() -> new IllegalStateException("Produk tidak ditemukan"));
 
                 product.setStatus(ProductStatus.HIDDEN);
+                reorderService.refreshAfterCommit(List.of(productId));
+                productCodeIndex.updateAfterCommit(product);
         }
 
         // Method untuk mengaktifkan kembali product yang disembunyikan
@@ -213,6 +241,8 @@ public class ProductService {
                                 .orElseThrow(() -> new IllegalStateException("Produk tidak ditemukan"));
 
                 product.setStatus(ProductStatus.ACTIVE);
+                reorderService.refreshAfterCommit(List.of(productId));
+                productCodeIndex.updateAfterCommit(product);
         }
 
         // Method untuk mencari dan mengurutkan product berdasarkan keyword, status, dan
@@ -0,0 +1,276 @@
+package com.app.management.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import com.app.management.model.Supplier;
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.model.purchase.Purchase;
+import com.app.management.model.purchase.PurchaseStatus;
+import com.app.management.repository.ProductRepository;
+import com.app.management.repository.PurchaseRepository;
+import com.app.management.repository.SupplierRepository;
+
+import jakarta.transaction.Transactional;
+
+// Import surat jalan supplier (CSV: productCode,quantity,unitPurchasePrice) menjadi purchase berstatus CREATED
+@Service
+public class PurchaseImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Value("${app.purchase.import-batch-size:500}")
+    private int batchSize;
+
+    public record ImportResult(Purchase purchase, int lineCount, List<String> errors) {
+
+        public boolean isSuccess() {
+            return errors.isEmpty();
+        }
+    }
+
+    private record Line(int lineNumber, String productCode, Integer quantity, BigDecimal unitPurchasePrice) {
+    }
+
+    // Method untuk mengimpor CSV ke purchase baru. File dibaca streaming: setiap batchSize baris
+    // kode productnya dicari dengan satu query, divalidasi, lalu langsung di-insert. Jika ada baris
+    // yang salah, insert berikutnya dihentikan, sisa file tetap divalidasi, dan transaksi di-rollback
+    // sehingga tidak ada data yang tersimpan; hanya MAX_REPORTED_ERRORS error pertama yang disimpan
+    @Transactional
+    public ImportResult importCsv(Long supplierId, String referenceNumber, InputStream in) throws IOException {
+
+        Supplier supplier = supplierId == null ? null
+                : supplierRepository.findById(supplierId).orElse(null);
+        if (supplier == null) {
+            throw new IllegalArgumentException("Supplier harus dipilih");
+        }
+
+        if (referenceNumber == null || referenceNumber.isBlank()) {
+            throw new IllegalArgumentException("No. Referensi harus diisi");
+        }
+
+        if (purchaseRepository.existsByReferenceNumber(referenceNumber.trim())) {
+            throw new IllegalArgumentException(
+                    "No. Referensi sudah digunakan, silakan gunakan yang lain");
+        }
+
+        // Header disimpan lebih dulu supaya detail bisa di-insert per batch selama file dibaca
+        Purchase purchase = new Purchase();
+        purchase.setSupplier(supplier);
+        purchase.setReferenceNumber(referenceNumber.trim());
+        purchase.setStatus(PurchaseStatus.CREATED);
+        purchase.setTotalPurchase(BigDecimal.ZERO);
+
+        purchase = purchaseRepository.saveAndFlush(purchase);
+
+        ImportRun run = new ImportRun(purchase.getId());
+        parse(in, run);
+        run.flush();
+
+        if (run.lineCount == 0 && run.errorCount == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new ImportResult(null, 0, List.of("File tidak berisi baris produk"));
+        }
+
+        if (run.errorCount > 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+
+            List<String> report = new ArrayList<>(run.errors.values());
+            if (run.errorCount > MAX_REPORTED_ERRORS) {
+                report.add("... dan " + (run.errorCount - MAX_REPORTED_ERRORS) + " error lainnya");
+            }
+            return new ImportResult(null, run.lineCount, report);
+        }
+
+        purchase.setTotalPurchase(run.total);
+        entityCacheService.evictCollectionAfterCommit(Purchase.class, "purchaseDetails", purchase.getId());
+
+        return new ImportResult(purchase, run.lineCount, List.of());
+    }
+
+    // Baca CSV baris per baris; pemisah koma atau titik koma, header opsional
+    private void parse(InputStream in, ImportRun run) throws IOException {
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+
+            String raw;
+            int lineNumber = 0;
+
+            while ((raw = reader.readLine()) != null) {
+                lineNumber++;
+
+                String text = raw.strip();
+                if (lineNumber == 1 && text.startsWith("\uFEFF")) {
+                    text = text.substring(1);
+                }
+
+                if (text.isEmpty()) {
+                    continue;
+                }
+
+                String[] cols = text.split("[,;]");
+
+                if (lineNumber == 1 && cols[0].strip().equalsIgnoreCase("productCode")) {
+                    continue;
+                }
+
+                if (cols.length < 3) {
+                    run.error(lineNumber, "Format baris harus productCode,quantity,unitPurchasePrice");
+                    continue;
+                }
+
+                Integer quantity;
+                BigDecimal price;
+
+                try {
+                    quantity = Integer.valueOf(cols[1].strip());
+                    price = new BigDecimal(cols[2].strip());
+                } catch (NumberFormatException e) {
+                    run.error(lineNumber, "Quantity / harga beli bukan angka");
+                    continue;
+                }
+
+                run.add(new Line(
+                        lineNumber,
+                        cols[0].strip().toUpperCase(Locale.ROOT),
+                        quantity,
+                        price));
+            }
+        }
+    }
+
+    // State satu proses import: batch baris yang belum diproses, product yang sudah dicari,
+    // total, dan error (dibatasi MAX_REPORTED_ERRORS, urut nomor baris)
+    private final class ImportRun {
+
+        private final Long purchaseId;
+        private final Map<String, Product> products = new HashMap<>();
+        private final List<Line> pending = new ArrayList<>();
+        private final SortedMap<Integer, String> errors = new TreeMap<>();
+
+        private BigDecimal total = BigDecimal.ZERO;
+        private int lineCount;
+        private int errorCount;
+
+        ImportRun(Long purchaseId) {
+            this.purchaseId = purchaseId;
+        }
+
+        void add(Line line) {
+            lineCount++;
+            pending.add(line);
+
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void error(int lineNumber, String message) {
+            errorCount++;
+            errors.put(lineNumber, "Baris " + lineNumber + ": " + message);
+
+            if (errors.size() > MAX_REPORTED_ERRORS) {
+                errors.remove(errors.lastKey());
+            }
+        }
+
+        // Satu query untuk kode product baru di batch ini, lalu validasi dan insert batch JDBC
+        // (id IDENTITY membuat Hibernate mengirim insert satu per satu)
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            Set<String> unknown = pending.stream()
+                    .map(Line::productCode)
+                    .filter(code -> !products.containsKey(code))
+                    .collect(Collectors.toCollection(HashSet::new));
+
+            if (!unknown.isEmpty()) {
+                productRepository.findByProductCodeUpperIn(unknown)
+                        .forEach(p -> products.put(p.getProductCode().toUpperCase(Locale.ROOT), p));
+            }
+
+            List<Object[]> rows = new ArrayList<>(pending.size());
+
+            for (Line line : pending) {
+
+                Product product = products.get(line.productCode());
+
+                if (product == null) {
+                    error(line.lineNumber(), "Kode product tidak ditemukan: " + line.productCode());
+                    continue;
+                }
+
+                if (product.getStatus() != ProductStatus.ACTIVE) {
+                    error(line.lineNumber(), "Product tidak aktif: " + line.productCode());
+                    continue;
+                }
+
+                try {
+                    purchaseService.validateLine(line.quantity(), line.unitPurchasePrice());
+                } catch (IllegalArgumentException e) {
+                    error(line.lineNumber(), e.getMessage());
+                    continue;
+                }
+
+                BigDecimal subtotal = line.unitPurchasePrice()
+                        .multiply(BigDecimal.valueOf(line.quantity()));
+
+                total = total.add(subtotal);
+                rows.add(new Object[] {
+                        purchaseId, product.getId(), line.quantity(), line.unitPurchasePrice(), subtotal });
+            }
+
+            pending.clear();
+
+            // Setelah ada error, import pasti di-rollback: sisa file hanya divalidasi
+            if (errorCount == 0) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO purchase_details "
+                                + "(purchase_id, product_id, quantity, unit_purchase_price, subtotal) "
+                                + "VALUES (?, ?, ?, ?, ?)",
+                        rows);
+            }
+        }
+    }
+}
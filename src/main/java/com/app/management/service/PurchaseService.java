@@ -1,26 +1,75 @@
 package com.app.management.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.app.management.model.Supplier;
 import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
 import com.app.management.model.purchase.Purchase;
 import com.app.management.model.purchase.PurchaseDetails;
+import com.app.management.model.purchase.PurchaseListView;
 import com.app.management.model.purchase.PurchaseStatus;
+import com.app.management.repository.ProductRepository;
 import com.app.management.repository.PurchaseRepository;
+import com.app.management.repository.SupplierRepository;
+import com.app.management.service.stock.StockEngine;
 
 import jakarta.transaction.Transactional;
 
 @Service
 public class PurchaseService {
 
+    private static final DateTimeFormatter DRAFT_REFERENCE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
     @Autowired
     private PurchaseRepository purchaseRepository;
 
+    @Autowired
+    private SupplierDirectory supplierDirectory;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private ProductCostService productCostService;
+
+    @Autowired
+    private SupplierAnalyticsService supplierAnalyticsService;
+
+    @Autowired
+    private SupplierPriceCatalog supplierPriceCatalog;
+
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.purchase.page-size:20}")
+    private int pageSize;
+
     // Method untuk mengambil seluruh data pembelian
     public List<Purchase> getAllPurchases() {
         return purchaseRepository.findAll();
@@ -33,6 +82,24 @@ public class PurchaseService {
                         new IllegalArgumentException("Purchase tidak ditemukan"));
     }
 
+    // Method untuk mengambil harga beli & quantity terakhir per produk dari satu supplier (prefill form)
+    public Map<Long, SupplierPriceCatalog.PriceHint> getPriceHints(Long supplierId) {
+        return supplierPriceCatalog.getHints(supplierId);
+    }
+
+    // Method untuk memvalidasi satu baris detail pembelian (dipakai form input dan import CSV)
+    public void validateLine(Integer quantity, BigDecimal unitPurchasePrice) {
+
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity harus lebih dari 0");
+        }
+
+        if (unitPurchasePrice == null
+                || unitPurchasePrice.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Harga beli harus lebih dari 0");
+        }
+    }
+
     // Method untuk membuat transaksi pembelian baru beserta detailnya secara atomic
     @Transactional
     public Purchase createPurchase(Purchase purchase) {
@@ -67,6 +134,65 @@ public class PurchaseService {
         return purchaseRepository.save(purchase);
     }
 
+    // Method untuk membuat draft purchase (status CREATED) dari usulan stok menipis satu supplier.
+    // Harga diambil dari harga beli terakhir ke supplier tersebut
+    @Transactional
+    public Purchase createReorderDraft(Long supplierId) {
+
+        Supplier supplier = supplierRepository.findById(supplierId)
+                .orElseThrow(() -> new IllegalArgumentException("Supplier tidak ditemukan"));
+
+        List<ReorderService.LowStockView> lines = reorderService.getSuggestion(supplierId);
+        if (lines.isEmpty()) {
+            throw new IllegalStateException("Tidak ada usulan pembelian untuk supplier ini");
+        }
+
+        Map<Long, SupplierPriceCatalog.PriceHint> hints = supplierPriceCatalog.getHints(supplierId);
+        Map<Long, Product> products = productRepository.findAllById(
+                lines.stream().map(ReorderService.LowStockView::productId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Purchase purchase = new Purchase();
+        purchase.setSupplier(supplier);
+        purchase.setReferenceNumber("RO-" + LocalDateTime.now().format(DRAFT_REFERENCE_FORMAT) + "-" + supplierId);
+
+        for (ReorderService.LowStockView line : lines) {
+            Product product = products.get(line.productId());
+
+            // Produk yang sudah dihapus / dinonaktifkan sejak usulan dihitung dilewati
+            if (product == null || product.getStatus() != ProductStatus.ACTIVE) {
+                continue;
+            }
+
+            SupplierPriceCatalog.PriceHint hint = hints.get(line.productId());
+            BigDecimal price = hint != null ? hint.unitPurchasePrice() : product.getLastPurchasePrice();
+
+            // Baris tanpa harga beli yang valid tidak dimasukkan ke draft
+            try {
+                validateLine(line.suggestedQuantity(), price);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+
+            PurchaseDetails detail = new PurchaseDetails();
+            detail.setProduct(product);
+            detail.setQuantity(line.suggestedQuantity());
+            detail.setUnitPurchasePrice(price);
+            purchase.addPurchaseDetail(detail);
+        }
+
+        if (purchase.getPurchaseDetails().isEmpty()) {
+            throw new IllegalStateException("Tidak ada usulan pembelian dengan harga beli yang valid");
+        }
+
+        purchase.setTotalPurchase(purchase.getPurchaseDetails().stream()
+                .map(d -> d.getUnitPurchasePrice().multiply(BigDecimal.valueOf(d.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        return createPurchase(purchase);
+    }
+
     // Method untuk menyelesaikan transaksi pembelian dan menambah stok produk
     @Transactional
     public boolean completePurchase(Long id) {
@@ -77,24 +203,73 @@ public class PurchaseService {
             throw new IllegalStateException("Invalid state transition");
         }
 
-        for (PurchaseDetails detail : purchase.getPurchaseDetails()) {
+        receive(List.of(purchase));
 
-            Product product = detail.getProduct();
+        return true;
+    }
 
-            detail.setPurchasePriceBefore(
-                    product.getLastPurchasePrice());
+    // Method untuk menyelesaikan banyak pembelian sekaligus (satu truk datang).
+    // Semua purchase dimuat dalam satu query, perubahan stok digabung per produk,
+    // lalu diterapkan dalam satu transaksi
+    @Transactional
+    public int completePurchases(Collection<Long> ids) {
+
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Pilih minimal 1 pembelian");
+        }
 
-            product.setCurrentStock(
-                    product.getCurrentStock()
-                            + detail.getQuantity());
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        List<Purchase> purchases = purchaseRepository.findAllWithDetailsByIdIn(uniqueIds);
 
-            product.setLastPurchasePrice(
-                    detail.getUnitPurchasePrice());
+        if (purchases.size() != uniqueIds.size()) {
+            throw new IllegalArgumentException("Purchase tidak ditemukan");
         }
 
-        purchase.setStatus(PurchaseStatus.COMPLETED);
+        for (Purchase purchase : purchases) {
+            if (purchase.getStatus() != PurchaseStatus.CREATED) {
+                throw new IllegalStateException(
+                        "Pembelian " + purchase.getReferenceNumber() + " tidak berstatus CREATED");
+            }
+        }
 
-        return true;
+        // Urutkan sesuai id supaya harga beli terakhir mengikuti urutan pembelian
+        purchases.sort(Comparator.comparing(Purchase::getId));
+        receive(purchases);
+
+        return purchases.size();
+    }
+
+    // Terapkan penerimaan barang: purchasePriceBefore tiap detail mengikuti urutan detail
+    // (supaya pembatalan tetap bisa mengembalikan harga), stok digabung per produk
+    private void receive(List<Purchase> purchases) {
+
+        Map<Product, Integer> deltas = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Purchase purchase : purchases) {
+            for (PurchaseDetails detail : purchase.getPurchaseDetails()) {
+
+                Product product = detail.getProduct();
+
+                detail.setPurchasePriceBefore(
+                        product.getLastPurchasePrice());
+
+                productCostService.receive(
+                        purchase, product, detail.getQuantity(), detail.getUnitPurchasePrice());
+
+                product.setLastPurchasePrice(
+                        detail.getUnitPurchasePrice());
+
+                deltas.merge(product, detail.getQuantity(), Integer::sum);
+            }
+
+            purchase.setStatus(PurchaseStatus.COMPLETED);
+            purchase.setCompletedAt(now);
+
+            supplierAnalyticsService.recordCompleted(purchase);
+        }
+
+        deltas.forEach(this::adjustStock);
     }
 
     // Method untuk membatalkan transaksi pembelian dengan penanganan rollback stok jika diperlukan
@@ -114,13 +289,16 @@ public class PurchaseService {
 
         if (purchase.getStatus() == PurchaseStatus.COMPLETED) {
 
+            supplierAnalyticsService.recordCancelled(purchase);
+
             for (PurchaseDetails detail : purchase.getPurchaseDetails()) {
 
                 Product product = detail.getProduct();
 
-                product.setCurrentStock(
-                        product.getCurrentStock()
-                                - detail.getQuantity());
+                adjustStock(product, -detail.getQuantity());
+
+                productCostService.reverse(
+                        purchase, product, detail.getQuantity(), detail.getUnitPurchasePrice());
 
                 if (detail.getPurchasePriceBefore() != null) {
                     product.setLastPurchasePrice(
@@ -135,10 +313,25 @@ public class PurchaseService {
         throw new IllegalStateException("Invalid purchase state");
     }
 
-    // Method untuk mencari dan mengurutkan data pembelian berdasarkan keyword dan parameter sorting
-    public List<Purchase> searchAndSort(
+    // Tambah / kurangi stok produk, lewat stock engine jika aktif
+    private void adjustStock(Product product, int quantity) {
+
+        reorderService.refreshAfterCommit(List.of(product.getId()));
+
+        if (!stockEngine.isEnabled()) {
+            product.setCurrentStock(product.getCurrentStock() + quantity);
+            return;
+        }
+
+        stockEngine.restock(product.getId(), quantity);
+    }
+
+    // Method untuk mencari dan mengurutkan data pembelian berdasarkan keyword dan parameter sorting.
+    // Keyword dicocokkan sebagai awalan no. referensi / nama supplier di database, per halaman
+    public Page<PurchaseListView> searchAndSort(
             String keyword,
-            String sort) {
+            String sort,
+            int page) {
 
         Sort sortOrder;
 
@@ -160,26 +353,23 @@ public class PurchaseService {
                         Sort.by("purchaseDate").descending();
         }
 
-        if (keyword != null && !keyword.isBlank()) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), pageSize, sortOrder);
+
+        if (keyword == null || keyword.isBlank()) {
+            return purchaseRepository.findListViews(pageable);
+        }
+
+        String prefix = keyword.trim()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_") + "%";
+
+        List<Long> supplierIds = supplierDirectory.findIdsByNamePrefix(keyword.trim());
 
-            return purchaseRepository
-                    .findAll(sortOrder)
-                    .stream()
-                    .filter(p ->
-                            p.getReferenceNumber()
-                                    .toLowerCase()
-                                    .contains(keyword.toLowerCase())
-                                    ||
-                                    (p.getSupplier() != null
-                                            &&
-                                            p.getSupplier()
-                                                    .getSupplierName()
-                                                    .toLowerCase()
-                                                    .contains(
-                                                            keyword.toLowerCase())))
-                    .toList();
+        if (supplierIds.isEmpty()) {
+            return purchaseRepository.searchListViews(prefix, pageable);
         }
 
-        return purchaseRepository.findAll(sortOrder);
+        return purchaseRepository.searchListViews(prefix, supplierIds, pageable);
     }
 }
@@ -0,0 +1,170 @@
+package com.app.management.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.View;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+// Cache HTML hasil render halaman dokumen yang statusnya sudah final (COMPLETED / CANCELLED).
+// Key memuat id dan status dokumen, jadi perubahan status otomatis memakai entry baru.
+// Ukuran dibatasi total byte, entry yang paling lama tidak dibaca dibuang lebih dulu (LRU)
+@Component
+public class RenderedPageCache {
+
+    @Autowired
+    private ThymeleafViewResolver thymeleafViewResolver;
+
+    @Value("${app.document.page-cache-max-bytes:16777216}")
+    private long maxBytes;
+
+    public record CachedPage(byte[] body, String etag) {
+
+        long weight() {
+            return body.length;
+        }
+    }
+
+    // Urutan akses (accessOrder = true): entry pertama adalah yang paling lama tidak dibaca
+    private final LinkedHashMap<String, CachedPage> pages = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long totalBytes;
+
+    // Method untuk mengirim halaman dari cache: 304 jika ETag browser masih sama, isi cache jika
+    // sudah pernah dirender, selain itu render template sekali lalu simpan hasilnya
+    public ResponseEntity<byte[]> render(
+            String key,
+            String viewName,
+            Map<String, Object> model,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+
+        CachedPage page = get(key);
+
+        if (page == null) {
+            byte[] body = renderView(viewName, model, request, response);
+            page = new CachedPage(body, etagOf(body));
+            put(key, page);
+        }
+
+        // Halaman bergantung pada login: browser boleh menyimpan, tapi wajib validasi ulang (ETag)
+        if (new ServletWebRequest(request, response).checkNotModified(page.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(page.etag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .eTag(page.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(page.body());
+    }
+
+    // Method untuk mengosongkan cache setelah commit (mis. nama produk / supplier diubah,
+    // sehingga halaman dokumen lama yang menampilkannya ikut berubah)
+    public void clearAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clear();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clear();
+            }
+        });
+    }
+
+    private synchronized CachedPage get(String key) {
+        return pages.get(key);
+    }
+
+    private synchronized void put(String key, CachedPage page) {
+        if (page.weight() > maxBytes) {
+            return;
+        }
+
+        CachedPage old = pages.put(key, page);
+        totalBytes += page.weight() - (old == null ? 0 : old.weight());
+
+        Iterator<CachedPage> eldest = pages.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().weight();
+            eldest.remove();
+        }
+    }
+
+    private synchronized void clear() {
+        pages.clear();
+        totalBytes = 0;
+    }
+
+    // Render lewat view resolver Thymeleaf yang sama dengan request biasa, ke buffer
+    private byte[] renderView(String viewName, Map<String, Object> model,
+            HttpServletRequest request, HttpServletResponse response) {
+
+        try {
+            View view = thymeleafViewResolver.resolveViewName(viewName, request.getLocale());
+            if (view == null) {
+                throw new IllegalStateException("Template tidak ditemukan: " + viewName);
+            }
+
+            // URL tidak di-encode: ;jsessionid dari session tanpa cookie tidak boleh ikut tersimpan
+            // di HTML yang nantinya dikirim ke pengguna lain
+            ContentCachingResponseWrapper buffer = new ContentCachingResponseWrapper(
+                    new HttpServletResponseWrapper(response) {
+                        @Override
+                        public String encodeURL(String url) {
+                            return url;
+                        }
+
+                        @Override
+                        public String encodeRedirectURL(String url) {
+                            return url;
+                        }
+                    });
+            view.render(model, request, buffer);
+            buffer.flushBuffer();
+
+            return buffer.getContentAsByteArray();
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Gagal merender halaman " + viewName, e);
+        }
+    }
+
+    // ETag kuat dari isi halaman, jadi halaman yang dirender ulang setelah cache dikosongkan
+    // hanya mendapat 304 jika isinya memang sama
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
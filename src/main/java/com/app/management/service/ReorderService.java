@@ -0,0 +1,464 @@
+package com.app.management.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.management.model.SupplierProductStats;
+import com.app.management.model.SupplierStats;
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.model.product.ProductVelocity;
+import com.app.management.repository.ProductRepository;
+import com.app.management.repository.ProductVelocityRepository;
+import com.app.management.repository.SupplierProductStatsRepository;
+import com.app.management.repository.SupplierStatsRepository;
+import com.app.management.service.stock.StockEngine;
+import com.app.management.service.stock.StockLevel;
+
+import jakarta.annotation.PreDestroy;
+
+// Titik pemesanan ulang dari kecepatan penjualan per produk.
+// Kecepatan = rata-rata bergerak eksponensial (unit / hari) yang diperbarui di memori setiap invoice selesai:
+//   v(t) = v(t0) * e^(-(t - t0) / window) + qty / window
+// sehingga tidak perlu memindai invoice_details. Produk yang laku disimpan dalam heap
+// berurutan dari stok yang paling cepat habis (days of cover terkecil).
+@Service
+public class ReorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReorderService.class);
+
+    private static final double SECONDS_PER_DAY = 86_400.0;
+
+    @Autowired
+    private ProductVelocityRepository productVelocityRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplierProductStatsRepository supplierProductStatsRepository;
+
+    @Autowired
+    private SupplierStatsRepository supplierStatsRepository;
+
+    @Autowired
+    private SupplierDirectory supplierDirectory;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Value("${app.reorder.velocity-window-days:14}")
+    private double windowDays;
+
+    @Value("${app.reorder.default-lead-time-days:7}")
+    private double defaultLeadTimeDays;
+
+    @Value("${app.reorder.safety-days:3}")
+    private double safetyDays;
+
+    @Value("${app.reorder.review-days:14}")
+    private double reviewDays;
+
+    // Satu produk di antrian stok menipis. Urutan heap memakai key yang tidak berubah
+    // terhadap waktu: semua kecepatan meluruh dengan faktor yang sama, jadi urutan
+    // days of cover hanya bergeser saat stok / kecepatan produk itu sendiri berubah
+    private record Entry(
+            Long productId,
+            String productCode,
+            String productName,
+            int stock,
+            double unitsPerDay,
+            double updatedAtDays,
+            Long supplierId,
+            double leadTimeDays,
+            double key) {
+    }
+
+    public record LowStockView(
+            Long productId,
+            String productCode,
+            String productName,
+            int stock,
+            BigDecimal dailySales,
+            BigDecimal daysOfCover,
+            int reorderPoint,
+            int suggestedQuantity,
+            Long supplierId,
+            String supplierName) {
+    }
+
+    public record PurchaseSuggestion(Long supplierId, String supplierName, List<LowStockView> lines) {
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // Kecepatan per produk; sumber kebenaran selama aplikasi berjalan, database hanya salinan
+    private final Map<Long, ProductVelocity> velocities = new HashMap<>();
+
+    // Produk yang kecepatannya belum ditulis ke database
+    private final Set<Long> dirty = new HashSet<>();
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingDouble(Entry::key));
+
+    // Nomor urut refresh terakhir yang diterapkan per produk: refresh yang membaca database lebih
+    // dulu tidak boleh menimpa hasil refresh yang mulai membaca sesudahnya
+    private final Map<Long, Long> refreshedBy = new HashMap<>();
+
+    private long refreshSequence;
+
+    private boolean loaded;
+
+    // Method untuk mencatat penjualan (productId -> quantity) dari invoice yang diselesaikan.
+    // Kecepatan diperbarui di memori setelah commit (tanpa mengunci baris product_velocity di
+    // transaksi penjualan) dan ditulis ke database oleh flushVelocities
+    public void recordSales(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> copy = Map.copyOf(quantities);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applySales(copy);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applySales(copy);
+            }
+        });
+    }
+
+    // Scheduler: simpan kecepatan yang berubah sejak flush terakhir, juga saat aplikasi berhenti
+    @Scheduled(fixedDelayString = "${app.reorder.velocity-flush-interval-ms:10000}")
+    @PreDestroy
+    public void flushVelocities() {
+        List<ProductVelocity> changed;
+
+        synchronized (this) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+
+            changed = dirty.stream()
+                    .map(velocities::get)
+                    .map(v -> new ProductVelocity(v.getProductId(), v.getUnitsPerDay(), v.getUpdatedAt()))
+                    .toList();
+            dirty.clear();
+        }
+
+        try {
+            productVelocityRepository.saveAll(changed);
+        } catch (RuntimeException e) {
+            // dicoba lagi pada flush berikutnya, kecuali produk itu sudah berubah lagi
+            synchronized (this) {
+                changed.forEach(v -> dirty.add(v.getProductId()));
+            }
+            log.error("Gagal menyimpan kecepatan penjualan", e);
+        }
+    }
+
+    private void applySales(Map<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        double nowDays = toDays(now);
+
+        synchronized (this) {
+            ensureLoaded();
+
+            quantities.forEach((productId, quantity) -> {
+                ProductVelocity v = velocities.computeIfAbsent(productId,
+                        id -> new ProductVelocity(id, 0.0, now));
+
+                v.setUnitsPerDay(decay(v.getUnitsPerDay(), toDays(v.getUpdatedAt()), nowDays)
+                        + quantity / windowDays);
+                v.setUpdatedAt(now);
+                dirty.add(productId);
+            });
+        }
+
+        refresh(quantities.keySet());
+    }
+
+    // Method untuk menghitung ulang posisi produk di antrian setelah stok / data produk berubah.
+    // Dijalankan setelah commit supaya antrian tidak memuat perubahan yang di-rollback
+    public void refreshAfterCommit(Collection<Long> productIds) {
+        Set<Long> ids = Set.copyOf(productIds);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(ids);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh(ids);
+            }
+        });
+    }
+
+    // Method untuk mengambil produk yang stoknya sudah di bawah titik pemesanan ulang,
+    // urut dari yang paling cepat habis
+    public List<LowStockView> getLowStock(int limit) {
+        List<Entry> urgent = new ArrayList<>();
+        double now = toDays(LocalDateTime.now());
+
+        synchronized (this) {
+            ensureLoaded();
+
+            // Heap disalin supaya antrian asli tetap utuh; berhenti begitu days of cover
+            // melewati ambang terbesar karena entri berikutnya pasti lebih aman
+            double maxThreshold = entries.values().stream()
+                    .mapToDouble(Entry::leadTimeDays)
+                    .max().orElse(defaultLeadTimeDays) + safetyDays;
+
+            PriorityQueue<Entry> queue = new PriorityQueue<>(heap);
+
+            while (!queue.isEmpty() && urgent.size() < limit) {
+                Entry e = queue.poll();
+
+                if (cover(e, now) > maxThreshold) {
+                    break;
+                }
+
+                // Produk yang sudah lama tidak laku (titik pesan ulang 0) tidak perlu diusulkan
+                int reorderPoint = reorderPoint(e, now);
+                if (reorderPoint > 0 && e.stock() <= reorderPoint) {
+                    urgent.add(e);
+                }
+            }
+        }
+
+        Map<Long, String> names = supplierDirectory.getOptions().stream()
+                .collect(Collectors.toMap(SupplierDirectory.Option::id, SupplierDirectory.Option::supplierName));
+
+        return urgent.stream()
+                .map(e -> toView(e, now, names))
+                .toList();
+    }
+
+    // Method untuk mengelompokkan produk stok menipis per supplier terakhir sebagai usulan purchase
+    public List<PurchaseSuggestion> getSuggestions() {
+        Map<Long, List<LowStockView>> bySupplier = new LinkedHashMap<>();
+
+        for (LowStockView line : getLowStock(Integer.MAX_VALUE)) {
+            bySupplier.computeIfAbsent(line.supplierId(), k -> new ArrayList<>()).add(line);
+        }
+
+        return bySupplier.values().stream()
+                .map(lines -> new PurchaseSuggestion(
+                        lines.get(0).supplierId(), lines.get(0).supplierName(), lines))
+                .toList();
+    }
+
+    // Method untuk mengambil usulan purchase untuk satu supplier
+    public List<LowStockView> getSuggestion(Long supplierId) {
+        return getLowStock(Integer.MAX_VALUE).stream()
+                .filter(line -> supplierId.equals(line.supplierId()))
+                .toList();
+    }
+
+    // Dipanggil dari afterCommit setiap invoice / purchase selesai: produk dan statistik supplier
+    // dibaca di luar monitor, monitor hanya dipegang untuk menyalin kecepatan dan menukar entri heap,
+    // jadi penyelesaian invoice dan pembaca dashboard tidak antri di belakang query database
+    private void refresh(Set<Long> productIds) {
+        Map<Long, ProductVelocity> snapshot = new HashMap<>();
+        long sequence;
+
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+
+            sequence = ++refreshSequence;
+            for (Long productId : productIds) {
+                ProductVelocity v = velocities.get(productId);
+                if (v != null) {
+                    snapshot.put(productId,
+                            new ProductVelocity(v.getProductId(), v.getUnitsPerDay(), v.getUpdatedAt()));
+                }
+            }
+        }
+
+        Map<Long, Entry> rebuilt = build(productRepository.findAllById(productIds), snapshot).stream()
+                .collect(Collectors.toMap(Entry::productId, e -> e));
+
+        synchronized (this) {
+            for (Long productId : productIds) {
+                if (refreshedBy.getOrDefault(productId, 0L) > sequence) {
+                    continue;
+                }
+                refreshedBy.put(productId, sequence);
+
+                Entry old = entries.remove(productId);
+                if (old != null) {
+                    heap.remove(old);
+                }
+
+                Entry e = rebuilt.get(productId);
+                if (e != null) {
+                    entries.put(productId, e);
+                    heap.add(e);
+                }
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        productVelocityRepository.findAll().forEach(v -> velocities.put(v.getProductId(), v));
+
+        List<Long> selling = velocities.values().stream()
+                .filter(v -> v.getUnitsPerDay() > 0)
+                .map(ProductVelocity::getProductId)
+                .toList();
+
+        for (Entry e : build(productRepository.findAllById(selling), velocities)) {
+            entries.put(e.productId(), e);
+            heap.add(e);
+        }
+
+        loaded = true;
+    }
+
+    private List<Entry> build(List<Product> products, Map<Long, ProductVelocity> velocities) {
+
+        List<Product> selling = products.stream()
+                .filter(p -> p.getStatus() == ProductStatus.ACTIVE)
+                .filter(p -> velocities.containsKey(p.getId()))
+                .toList();
+
+        if (selling.isEmpty()) {
+            return List.of();
+        }
+
+        // Supplier acuan = supplier tempat produk terakhir dibeli
+        Map<Long, SupplierProductStats> lastSupplier = new HashMap<>();
+        for (SupplierProductStats s : supplierProductStatsRepository
+                .findByProductIds(selling.stream().map(Product::getId).toList())) {
+
+            lastSupplier.merge(s.getProduct().getId(), s, (a, b) -> isAfter(b, a) ? b : a);
+        }
+
+        Map<Long, Double> leadTimes = supplierStatsRepository.findAllById(
+                lastSupplier.values().stream().map(SupplierProductStats::getSupplierId).distinct().toList())
+                .stream()
+                .filter(s -> s.getLeadTimeCount() > 0)
+                .collect(Collectors.toMap(SupplierStats::getSupplierId,
+                        s -> s.getTotalLeadTimeMinutes() / (s.getLeadTimeCount() * 1440.0)));
+
+        List<Entry> result = new ArrayList<>();
+
+        for (Product p : selling) {
+            ProductVelocity v = velocities.get(p.getId());
+            SupplierProductStats supplier = lastSupplier.get(p.getId());
+            Long supplierId = supplier == null ? null : supplier.getSupplierId();
+
+            int stock = onHand(p);
+            double updatedAt = toDays(v.getUpdatedAt());
+
+            double key = stock <= 0
+                    ? Double.NEGATIVE_INFINITY
+                    : Math.log(stock) - Math.log(v.getUnitsPerDay()) - updatedAt / windowDays;
+
+            result.add(new Entry(
+                    p.getId(),
+                    p.getProductCode(),
+                    p.getProductName(),
+                    stock,
+                    v.getUnitsPerDay(),
+                    updatedAt,
+                    supplierId,
+                    leadTimes.getOrDefault(supplierId, defaultLeadTimeDays),
+                    key));
+        }
+
+        return result;
+    }
+
+    private LowStockView toView(Entry e, double now, Map<Long, String> supplierNames) {
+        double rate = decay(e.unitsPerDay(), e.updatedAtDays(), now);
+        double cover = cover(e, now);
+
+        int reorderPoint = reorderPoint(e, now);
+        int target = (int) Math.ceil(rate * (e.leadTimeDays() + safetyDays + reviewDays));
+
+        return new LowStockView(
+                e.productId(),
+                e.productCode(),
+                e.productName(),
+                e.stock(),
+                BigDecimal.valueOf(rate).setScale(2, RoundingMode.HALF_UP),
+                BigDecimal.valueOf(cover).setScale(1, RoundingMode.HALF_UP),
+                reorderPoint,
+                Math.max(1, target - Math.max(0, e.stock())),
+                e.supplierId(),
+                e.supplierId() == null ? null
+                        : supplierNames.getOrDefault(e.supplierId(), "#" + e.supplierId()));
+    }
+
+    // Stok fisik; jika stock engine aktif, angka engine lebih baru dari kolom current_stock
+    private int onHand(Product product) {
+        if (stockEngine.isEnabled()) {
+            StockLevel level = stockEngine.getLevel(product.getId());
+            if (level != null) {
+                return level.onHand();
+            }
+        }
+        return product.getCurrentStock();
+    }
+
+    // Perkiraan penjualan selama lead time + stok pengaman
+    private int reorderPoint(Entry e, double now) {
+        return (int) Math.round(decay(e.unitsPerDay(), e.updatedAtDays(), now) * (e.leadTimeDays() + safetyDays));
+    }
+
+    private double cover(Entry e, double now) {
+        if (e.stock() <= 0) {
+            return 0;
+        }
+        return e.stock() / decay(e.unitsPerDay(), e.updatedAtDays(), now);
+    }
+
+    private double decay(double unitsPerDay, double fromDays, double toDays) {
+        return unitsPerDay * Math.exp(-Math.max(0, toDays - fromDays) / windowDays);
+    }
+
+    private static boolean isAfter(SupplierProductStats a, SupplierProductStats b) {
+        if (a.getLastPurchaseDate() == null) {
+            return false;
+        }
+        return b.getLastPurchaseDate() == null || a.getLastPurchaseDate().isAfter(b.getLastPurchaseDate());
+    }
+
+    private static double toDays(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / SECONDS_PER_DAY;
+    }
+}
@@ -0,0 +1,88 @@
+package com.app.management.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.sales.CustomerSalesRank;
+import com.app.management.model.sales.ProductSalesRank;
+import com.app.management.model.sales.SalesStatus;
+import com.app.management.repository.SalesInvoiceRepository;
+
+import jakarta.transaction.Transactional;
+
+// Produk dan customer dengan penjualan terbesar dalam suatu periode.
+// Produk: GROUP BY + ORDER BY + LIMIT langsung di database.
+// Customer: database hanya menjumlah per Customer; K teratas dipilih dengan min-heap berukuran K
+// sambil membaca hasil lewat cursor, jadi memori O(K) berapa pun jumlah customer
+@Service
+public class SalesRankingService {
+
+    private static final Comparator<CustomerSalesRank> BY_REVENUE =
+            Comparator.comparing(CustomerSalesRank::revenue)
+                    .thenComparing(CustomerSalesRank::customerName, Comparator.reverseOrder());
+
+    @Autowired
+    private SalesInvoiceRepository salesInvoiceRepository;
+
+    @Value("${app.report.top-max-size:100}")
+    private int maxSize;
+
+    public record TopSales(List<ProductSalesRank> products, List<CustomerSalesRank> customers) {
+    }
+
+    // Method untuk mengambil produk dan customer terlaris dalam rentang tanggal
+    @Transactional
+    public TopSales getTopSales(LocalDate start, LocalDate end, int limit) {
+
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+
+        if (limit <= 0 || limit > maxSize) {
+            throw new IllegalArgumentException("Jumlah data harus antara 1 dan " + maxSize);
+        }
+
+        LocalDateTime startDT = start.atStartOfDay();
+        LocalDateTime endDT = end.atTime(23, 59, 59);
+
+        List<ProductSalesRank> products = salesInvoiceRepository.findTopProducts(
+                SalesStatus.COMPLETED, startDT, endDT, PageRequest.of(0, limit));
+
+        List<CustomerSalesRank> customers;
+        try (Stream<CustomerSalesRank> totals = salesInvoiceRepository
+                .streamCustomerTotals(SalesStatus.COMPLETED, startDT, endDT)) {
+            customers = topK(totals, limit);
+        }
+
+        return new TopSales(products, customers);
+    }
+
+    // Heap berisi K terbesar sejauh ini; elemen terkecil di puncak dibuang saat ukuran melebihi K
+    private List<CustomerSalesRank> topK(Stream<CustomerSalesRank> rows, int k) {
+
+        PriorityQueue<CustomerSalesRank> heap = new PriorityQueue<>(k + 1, BY_REVENUE);
+
+        rows.forEach(row -> {
+            if (heap.size() < k) {
+                heap.add(row);
+            } else if (BY_REVENUE.compare(row, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(row);
+            }
+        });
+
+        List<CustomerSalesRank> result = new ArrayList<>(heap);
+        result.sort(BY_REVENUE.reversed());
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package com.app.management.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.purchase.PurchaseStatus;
+import com.app.management.model.sales.SalesStatus;
+import com.app.management.repository.PurchaseRepository;
+import com.app.management.repository.SalesInvoiceRepository;
+
+// KPI dashboard staff. Dihitung ulang oleh scheduler setiap beberapa detik dan disimpan di memori,
+// jadi membuka dashboard tidak menambah query ke database berapa pun jumlah KPI-nya
+@Service
+public class StaffKpiService {
+
+    @Autowired
+    private SalesInvoiceRepository salesInvoiceRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private ReorderService reorderService;
+
+    public record StaffKpi(
+            BigDecimal todaySales,
+            long todayInvoices,
+            long openInvoices,
+            long pendingPurchases,
+            int lowStockCount,
+            LocalDateTime refreshedAt) {
+    }
+
+    private volatile StaffKpi snapshot;
+
+    // Method untuk mengambil snapshot KPI terakhir; dihitung langsung jika scheduler belum jalan
+    public StaffKpi getKpi() {
+        StaffKpi current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    // Scheduler: hitung ulang KPI dan ganti snapshot sekaligus
+    @Scheduled(fixedDelayString = "${app.staff-kpi.refresh-interval-ms:5000}")
+    public StaffKpi refresh() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime start = today.atStartOfDay();
+        LocalDateTime end = today.atTime(23, 59, 59);
+
+        StaffKpi kpi = new StaffKpi(
+                salesInvoiceRepository.sumTotalSales(SalesStatus.COMPLETED, start, end),
+                salesInvoiceRepository.countBySalesStatusAndInvoiceDateBetween(SalesStatus.COMPLETED, start, end),
+                salesInvoiceRepository.countBySalesStatus(SalesStatus.CREATED),
+                purchaseRepository.countByStatus(PurchaseStatus.CREATED),
+                reorderService.getLowStock(Integer.MAX_VALUE).size(),
+                LocalDateTime.now());
+
+        snapshot = kpi;
+        return kpi;
+    }
+}
@@ -0,0 +1,372 @@
+package com.app.management.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.StockTakeStatus;
+import com.app.management.model.purchase.PurchaseStatus;
+import com.app.management.model.sales.SalesStatus;
+import com.app.management.service.stock.StockEngine;
+import com.app.management.service.stock.StockLevel;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+
+// Pemeriksa integritas stok: stok seharusnya = stok awal + purchase COMPLETED - invoice COMPLETED
+// + stock opname APPLIED, dihitung ulang dari detail transaksi lalu dibandingkan dengan current_stock.
+// Rentang id produk dibagi ke beberapa worker fork-join; setiap rentang dibaca dalam satu snapshot
+// (REPEATABLE READ) dengan query GROUP BY per tabel detail, jadi detail tidak pernah dimuat per baris
+@Service
+public class StockReconcileService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReconcileService.class);
+
+    private static final String PRODUCT_SQL =
+            "SELECT id, product_code, product_name, current_stock, opening_stock FROM product "
+                    + "WHERE id BETWEEN ? AND ?";
+
+    private static final String PURCHASED_SQL =
+            "SELECT d.product_id, SUM(d.quantity) FROM purchase_details d "
+                    + "JOIN purchase pu ON pu.id = d.purchase_id "
+                    + "WHERE pu.status = ? AND d.product_id BETWEEN ? AND ? GROUP BY d.product_id";
+
+    private static final String SOLD_SQL =
+            "SELECT d.product_id, SUM(d.quantity) FROM invoice_details d "
+                    + "JOIN sales_invoice s ON s.id = d.invoice_id "
+                    + "WHERE s.sales_status = ? AND d.product_id BETWEEN ? AND ? GROUP BY d.product_id";
+
+    private static final String ADJUSTED_SQL =
+            "SELECT a.product_id, SUM(a.difference) FROM stock_adjustment a "
+                    + "JOIN stock_take t ON t.id = a.stock_take_id "
+                    + "WHERE t.status = ? AND a.product_id BETWEEN ? AND ? GROUP BY a.product_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Value("${app.stock-reconcile.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.stock-reconcile.partition-size:10000}")
+    private long partitionSize;
+
+    @Value("${app.stock-reconcile.auto-correct:false}")
+    private boolean autoCorrect;
+
+    private ForkJoinPool pool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicReference<ReconcileReport> lastReport = new AtomicReference<>();
+
+    public record StockDrift(
+            Long productId,
+            String productCode,
+            String productName,
+            int expectedStock,
+            int actualStock) {
+
+        public int getDifference() {
+            return actualStock - expectedStock;
+        }
+    }
+
+    public record ReconcileReport(
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt,
+            long productCount,
+            List<StockDrift> drifts,
+            int corrected) {
+    }
+
+    private record PartitionResult(long productCount, List<StockDrift> drifts) {
+    }
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    // Produk lama belum punya stok awal: turunkan dari stok saat ini dikurangi semua pergerakan,
+    // sehingga rekonsiliasi berikutnya hanya melaporkan selisih yang terjadi setelah ini
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillOpeningStock() {
+        int updated = jdbcTemplate.update(
+                "UPDATE product SET opening_stock = current_stock "
+                        + "- COALESCE((SELECT SUM(d.quantity) FROM purchase_details d "
+                        + "JOIN purchase pu ON pu.id = d.purchase_id "
+                        + "WHERE d.product_id = product.id AND pu.status = ?), 0) "
+                        + "+ COALESCE((SELECT SUM(d.quantity) FROM invoice_details d "
+                        + "JOIN sales_invoice s ON s.id = d.invoice_id "
+                        + "WHERE d.product_id = product.id AND s.sales_status = ?), 0) "
+                        + "- COALESCE((SELECT SUM(a.difference) FROM stock_adjustment a "
+                        + "JOIN stock_take t ON t.id = a.stock_take_id "
+                        + "WHERE a.product_id = product.id AND t.status = ?), 0) "
+                        + "WHERE opening_stock IS NULL",
+                PurchaseStatus.COMPLETED.name(),
+                SalesStatus.COMPLETED.name(),
+                StockTakeStatus.APPLIED.name());
+
+        if (updated > 0) {
+            entityCacheService.evictAllAfterCommit(Product.class);
+            log.info("Stok awal diisi untuk {} produk", updated);
+        }
+    }
+
+    // Method untuk mengambil laporan rekonsiliasi terakhir (null jika belum pernah dijalankan)
+    public ReconcileReport getLastReport() {
+        return lastReport.get();
+    }
+
+    // Koreksi hanya tersedia tanpa stock engine: engine sudah meng-ack penjualan yang detailnya
+    // belum commit, jadi posisi engine dan jumlah detail yang sudah commit bisa berbeda sementara
+    // tanpa ada selisih sungguhan. Dengan engine aktif rekonsiliasi hanya melaporkan
+    public boolean isCorrectionAvailable() {
+        return !stockEngine.isEnabled();
+    }
+
+    // Rekonsiliasi terjadwal (app.stock-reconcile.cron, "-" = nonaktif), sebaiknya di luar jam ramai
+    @Scheduled(cron = "${app.stock-reconcile.cron:-}")
+    public void scheduledReconcile() {
+        boolean correct = autoCorrect && isCorrectionAvailable();
+
+        if (autoCorrect && !correct) {
+            log.warn("Koreksi otomatis stok dilewati karena stock engine aktif, hanya laporan yang dibuat");
+        }
+
+        try {
+            reconcile(correct);
+        } catch (IllegalStateException e) {
+            log.warn("Rekonsiliasi stok terjadwal dilewati: {}", e.getMessage());
+        }
+    }
+
+    // Method untuk menghitung ulang stok seharusnya semua produk dan (opsional) memperbaiki selisihnya
+    public ReconcileReport reconcile(boolean correct) {
+
+        if (correct && !isCorrectionAvailable()) {
+            throw new IllegalStateException("Koreksi stok tidak tersedia saat stock engine aktif");
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Rekonsiliasi stok sedang berjalan");
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+
+            Map<String, Object> range = jdbcTemplate.queryForMap(
+                    "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM product");
+
+            PartitionResult result = range.get("min_id") == null
+                    ? new PartitionResult(0, List.of())
+                    : pool.invoke(new RangeTask(
+                            ((Number) range.get("min_id")).longValue(),
+                            ((Number) range.get("max_id")).longValue()));
+
+            List<StockDrift> drifts = new ArrayList<>(result.drifts());
+            drifts.sort(Comparator.comparing(StockDrift::productId));
+
+            int corrected = correct && !drifts.isEmpty() ? correct(drifts) : 0;
+
+            ReconcileReport report = new ReconcileReport(
+                    startedAt, LocalDateTime.now(), result.productCount(), drifts, corrected);
+            lastReport.set(report);
+
+            if (drifts.isEmpty()) {
+                log.info("Rekonsiliasi stok: {} produk, tidak ada selisih", result.productCount());
+            } else {
+                log.warn("Rekonsiliasi stok: {} dari {} produk selisih, {} diperbaiki",
+                        drifts.size(), result.productCount(), corrected);
+            }
+
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Setiap produk dihitung ulang dengan baris produk dikunci, supaya perubahan stok yang terjadi
+    // sejak pemeriksaan tidak ikut "diperbaiki" (hanya tanpa stock engine, lihat isCorrectionAvailable)
+    private int correct(List<StockDrift> drifts) {
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        Integer corrected = tx.execute(status -> {
+
+            Map<Long, Integer> deltas = new LinkedHashMap<>();
+
+            for (StockDrift drift : drifts) {
+                List<StockDrift> current = scan(drift.productId(), drift.productId(), true).drifts();
+
+                if (!current.isEmpty()) {
+                    deltas.put(drift.productId(), -current.get(0).getDifference());
+                }
+            }
+
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+
+            long changeSeq = changeSequence.next();
+
+            jdbcTemplate.batchUpdate(
+                    "UPDATE product SET current_stock = current_stock + ?, change_seq = ? WHERE id = ?",
+                    deltas.entrySet().stream()
+                            .map(e -> new Object[] { e.getValue(), changeSeq, e.getKey() })
+                            .toList());
+
+            entityCacheService.evictAfterCommit(Product.class, deltas.keySet());
+            reorderService.refreshAfterCommit(deltas.keySet());
+            return deltas.size();
+        });
+
+        return corrected == null ? 0 : corrected;
+    }
+
+    // Satu rentang id produk: 4 query agregat, digabung di memori per produk
+    private PartitionResult scan(long fromId, long toId, boolean lockProducts) {
+
+        Map<Long, Long> expected = new HashMap<>();
+        List<Object[]> products = new ArrayList<>();
+
+        jdbcTemplate.query(lockProducts ? PRODUCT_SQL + " FOR UPDATE" : PRODUCT_SQL, rs -> {
+            long id = rs.getLong(1);
+            expected.put(id, rs.getLong(5));
+            products.add(new Object[] { id, rs.getString(2), rs.getString(3), rs.getInt(4) });
+        }, fromId, toId);
+
+        if (products.isEmpty()) {
+            return new PartitionResult(0, List.of());
+        }
+
+        jdbcTemplate.query(PURCHASED_SQL,
+                rs -> {
+                    expected.merge(rs.getLong(1), rs.getLong(2), Long::sum);
+                },
+                PurchaseStatus.COMPLETED.name(), fromId, toId);
+
+        jdbcTemplate.query(SOLD_SQL,
+                rs -> {
+                    expected.merge(rs.getLong(1), -rs.getLong(2), Long::sum);
+                },
+                SalesStatus.COMPLETED.name(), fromId, toId);
+
+        jdbcTemplate.query(ADJUSTED_SQL,
+                rs -> {
+                    expected.merge(rs.getLong(1), rs.getLong(2), Long::sum);
+                },
+                StockTakeStatus.APPLIED.name(), fromId, toId);
+
+        List<StockDrift> drifts = new ArrayList<>();
+
+        for (Object[] p : products) {
+            Long id = (Long) p[0];
+            int actual = actualStock(id, (Integer) p[3]);
+            int expectedStock = expected.get(id).intValue();
+
+            if (actual != expectedStock) {
+                drifts.add(new StockDrift(id, (String) p[1], (String) p[2], expectedStock, actual));
+            }
+        }
+
+        return new PartitionResult(products.size(), drifts);
+    }
+
+    // Stok aktual = posisi di stock engine jika aktif (database bisa tertinggal beberapa ratus ms).
+    // Posisi engine sudah memuat penjualan yang di-ack tapi belum commit, jadi selisih kecil bisa sementara
+    private int actualStock(Long productId, int currentStock) {
+        if (stockEngine.isEnabled()) {
+            StockLevel level = stockEngine.getLevel(productId);
+            if (level != null) {
+                return level.onHand();
+            }
+        }
+        return currentStock;
+    }
+
+    // Rentang dibagi dua sampai ukurannya tidak lebih dari partition-size;
+    // setiap rentang terkecil dibaca dalam satu transaksi read-only REPEATABLE READ
+    private final class RangeTask extends RecursiveTask<PartitionResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long fromId;
+        private final long toId;
+
+        private RangeTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected PartitionResult compute() {
+
+            if (toId - fromId < partitionSize) {
+                TransactionTemplate tx = new TransactionTemplate(transactionManager);
+                tx.setReadOnly(true);
+                tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+                return tx.execute(status -> scan(fromId, toId, false));
+            }
+
+            long middle = fromId + (toId - fromId) / 2;
+
+            RangeTask left = new RangeTask(fromId, middle);
+            RangeTask right = new RangeTask(middle + 1, toId);
+
+            left.fork();
+            PartitionResult r = right.compute();
+            PartitionResult l = left.join();
+
+            List<StockDrift> drifts = new ArrayList<>(l.drifts());
+            drifts.addAll(r.drifts());
+
+            return new PartitionResult(l.productCount() + r.productCount(), drifts);
+        }
+    }
+}
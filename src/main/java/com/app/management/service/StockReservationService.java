@@ -0,0 +1,299 @@
+package com.app.management.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.model.sales.ReservationStatus;
+import com.app.management.model.sales.SalesInvoice;
+import com.app.management.model.sales.StockReservation;
+import com.app.management.repository.StockReservationRepository;
+import com.app.management.service.stock.StockEngine;
+import com.app.management.service.stock.StockLevel;
+
+import jakarta.transaction.Transactional;
+
+@Service
+public class StockReservationService {
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Value("${app.reservation.ttl-minutes:720}")
+    private long ttlMinutes;
+
+    @Value("${app.reservation.expiry-batch-size:500}")
+    private int expiryBatchSize;
+
+    // Total quantity yang ditahan per produk. Jika stock engine aktif, angka ini disimpan
+    // di engine (satu writer per produk) sehingga map ini tidak dipakai.
+    private final Map<Long, Integer> reserved = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    // Method untuk mengambil jumlah stok yang sedang ditahan untuk satu produk
+    public int getReservedQuantity(Long productId) {
+        ensureLoaded();
+
+        if (stockEngine.isEnabled()) {
+            StockLevel level = stockEngine.getLevel(productId);
+            return level == null ? 0 : level.reserved();
+        }
+
+        return reserved.getOrDefault(productId, 0);
+    }
+
+    // Method untuk menghitung stok tersedia (stok - ditahan) tanpa membaca invoice yang masih terbuka
+    public int getAvailableStock(Product product) {
+        ensureLoaded();
+
+        if (stockEngine.isEnabled()) {
+            StockLevel level = stockEngine.getLevel(product.getId());
+            if (level != null) {
+                return level.available();
+            }
+        }
+
+        return product.getCurrentStock() - getReservedQuantity(product.getId());
+    }
+
+    // Method untuk menahan stok seluruh baris invoice baru; gagal jika stok tersedia tidak cukup
+    public void reserve(SalesInvoice invoice) {
+        ensureLoaded();
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+
+        for (InvoiceDetails d : invoice.getInvoiceDetails()) {
+
+            Product product = d.getProduct();
+            int quantity = d.getQuantity();
+
+            // Dengan stock engine aktif, engine sendiri melepas tahanan jika transaksi di-rollback
+            hold(product, quantity);
+            if (!stockEngine.isEnabled()) {
+                afterRollback(() -> unhold(product.getId(), quantity));
+            }
+
+            StockReservation reservation = new StockReservation();
+            reservation.setSalesInvoice(invoice);
+            reservation.setProduct(product);
+            reservation.setQuantity(quantity);
+            reservation.setStatus(ReservationStatus.ACTIVE);
+            reservation.setExpiresAt(expiresAt);
+
+            stockReservationRepository.save(reservation);
+        }
+    }
+
+    // Method untuk menandai reservasi invoice sebagai terpakai (invoice selesai).
+    // Mengembalikan quantity yang ditahan per produk; stok on-hand dikurangi oleh pemanggil.
+    // Tanpa stock engine, tahanan di memori baru dilepas setelah commit supaya stok yang
+    // belum berkurang tidak sempat terlihat tersedia oleh invoice lain.
+    public Map<Long, Integer> consume(SalesInvoice invoice) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+
+        close(invoice, ReservationStatus.CONSUMED)
+                .forEach(r -> quantities.merge(r.getProduct().getId(), r.getQuantity(), Integer::sum));
+
+        if (!stockEngine.isEnabled()) {
+            afterCommit(() -> quantities.forEach(this::unhold));
+        }
+
+        return quantities;
+    }
+
+    // Method untuk mengambil quantity yang ditahan per produk untuk banyak invoice sekaligus
+    // (invoiceId -> productId -> quantity) dengan satu query. Baris reservasi dikunci sampai
+    // transaksi selesai, jadi scheduler kedaluwarsa tidak bisa melepasnya di tengah penyelesaian
+    public Map<Long, Map<Long, Integer>> getHolds(Collection<Long> invoiceIds) {
+        Map<Long, Map<Long, Integer>> holds = new HashMap<>();
+
+        if (invoiceIds.isEmpty()) {
+            return holds;
+        }
+
+        stockReservationRepository.findBySalesInvoiceIdInAndStatus(invoiceIds, ReservationStatus.ACTIVE)
+                .forEach(r -> holds
+                        .computeIfAbsent(r.getSalesInvoice().getId(), id -> new HashMap<>())
+                        .merge(r.getProduct().getId(), r.getQuantity(), Integer::sum));
+
+        return holds;
+    }
+
+    // Method untuk menandai reservasi banyak invoice sebagai terpakai sekaligus,
+    // dengan aturan pelepasan tahanan yang sama seperti consume
+    public void consumeAll(Collection<Long> invoiceIds) {
+        ensureLoaded();
+
+        if (invoiceIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+
+        stockReservationRepository.findBySalesInvoiceIdInAndStatus(invoiceIds, ReservationStatus.ACTIVE)
+                .forEach(r -> {
+                    r.setStatus(ReservationStatus.CONSUMED);
+                    quantities.merge(r.getProduct().getId(), r.getQuantity(), Integer::sum);
+                });
+
+        if (!stockEngine.isEnabled()) {
+            afterCommit(() -> quantities.forEach(this::unhold));
+        }
+    }
+
+    // Method untuk melepas reservasi invoice yang dibatalkan. Seperti consume dan kedaluwarsa,
+    // tahanan di memori / engine baru dilepas setelah commit
+    public void release(SalesInvoice invoice) {
+        Map<Long, Integer> quantities = new HashMap<>();
+
+        close(invoice, ReservationStatus.RELEASED)
+                .forEach(r -> quantities.merge(r.getProduct().getId(), r.getQuantity(), Integer::sum));
+
+        if (!quantities.isEmpty()) {
+            afterCommit(() -> quantities.forEach(this::unhold));
+        }
+    }
+
+    // Scheduler: lepaskan reservasi yang sudah kedaluwarsa, per batch.
+    // Tahanan di memori / engine baru dilepas setelah commit, jadi rollback tidak membuat
+    // angka tahanan berbeda dengan tabel reservasi
+    @Scheduled(fixedDelayString = "${app.reservation.expiry-interval-ms:60000}")
+    @Transactional
+    public void expireStaleReservations() {
+        ensureLoaded();
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> quantities = new HashMap<>();
+        List<StockReservation> batch;
+
+        do {
+            batch = stockReservationRepository.findExpired(now, PageRequest.of(0, expiryBatchSize));
+
+            for (StockReservation r : batch) {
+                r.setStatus(ReservationStatus.EXPIRED);
+                quantities.merge(r.getProduct().getId(), r.getQuantity(), Integer::sum);
+            }
+
+            stockReservationRepository.flush();
+        } while (batch.size() == expiryBatchSize);
+
+        if (!quantities.isEmpty()) {
+            afterCommit(() -> quantities.forEach(this::unhold));
+        }
+    }
+
+    private List<StockReservation> close(SalesInvoice invoice, ReservationStatus status) {
+        ensureLoaded();
+
+        List<StockReservation> active = stockReservationRepository
+                .findBySalesInvoiceIdAndStatus(invoice.getId(), ReservationStatus.ACTIVE);
+
+        active.forEach(r -> r.setStatus(status));
+        return active;
+    }
+
+    private void hold(Product product, int quantity) {
+
+        if (stockEngine.isEnabled()) {
+            try {
+                stockEngine.reserve(product.getId(), quantity);
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException(e.getMessage() + ": " + product.getProductName());
+            }
+            return;
+        }
+
+        reserved.compute(product.getId(), (id, current) -> {
+            int held = current == null ? 0 : current;
+            if (product.getCurrentStock() - held < quantity) {
+                throw new IllegalStateException("Stok tidak cukup: " + product.getProductName());
+            }
+            return held + quantity;
+        });
+    }
+
+    private void unhold(Long productId, int quantity) {
+        if (stockEngine.isEnabled()) {
+            stockEngine.release(productId, quantity);
+            return;
+        }
+
+        reserved.computeIfPresent(productId, (id, current) -> {
+            int left = current - quantity;
+            return left > 0 ? left : null;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    // Muat total reservasi aktif sekali saja (lazy, saat pertama kali dibutuhkan)
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            Map<Long, Integer> active = new HashMap<>();
+            for (Object[] row : stockReservationRepository.sumActiveByProduct()) {
+                active.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+
+            if (stockEngine.isEnabled()) {
+                stockEngine.restoreHolds(active);
+            } else {
+                reserved.putAll(active);
+            }
+
+            loaded = true;
+        }
+    }
+}
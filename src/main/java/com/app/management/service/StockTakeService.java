@@ -0,0 +1,358 @@
+package com.app.management.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStockView;
+import com.app.management.model.product.StockTake;
+import com.app.management.model.product.StockTakeStatus;
+import com.app.management.model.product.StockVarianceView;
+import com.app.management.repository.ProductRepository;
+import com.app.management.repository.StockAdjustmentRepository;
+import com.app.management.repository.StockTakeRepository;
+import com.app.management.service.stock.StockEngine;
+import com.app.management.service.stock.StockLevel;
+
+import jakarta.transaction.Transactional;
+
+// Stock opname: hasil hitung (CSV productCode,countedQuantity atau hasil scanner satu kode per baris)
+// dibaca baris per baris, dicocokkan ke stok sistem per batch kode, lalu selisihnya disimpan dan
+// diterapkan lewat JDBC batch. Satu kali baca file, tanpa memuat entity Product
+@Service
+public class StockTakeService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Autowired
+    private StockTakeRepository stockTakeRepository;
+
+    @Autowired
+    private StockAdjustmentRepository stockAdjustmentRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.stock-take.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.stock-take.report-size:200}")
+    private int reportSize;
+
+    public record UploadResult(StockTake stockTake, List<String> errors) {
+
+        public boolean isSuccess() {
+            return errors.isEmpty();
+        }
+    }
+
+    public record VarianceReport(StockTake stockTake, List<StockVarianceView> lines) {
+    }
+
+    // Hasil hitung per kode; baris pertama dipakai untuk pesan error
+    private static final class Count {
+        private final int lineNumber;
+        private int quantity;
+
+        private Count(int lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    // Method untuk membuat sesi stock opname dari file hasil hitung. Semua baris divalidasi dulu;
+    // jika ada yang salah, tidak ada data yang disimpan
+    @Transactional
+    public UploadResult upload(String note, InputStream in) throws IOException {
+
+        SortedMap<Integer, String> errors = new TreeMap<>();
+        Map<String, Count> counts = parse(in, errors);
+
+        if (counts.isEmpty() && errors.isEmpty()) {
+            return new UploadResult(null, List.of("File tidak berisi hasil hitung"));
+        }
+
+        Map<String, ProductStockView> products = findProducts(counts.keySet());
+
+        counts.forEach((code, count) -> {
+            if (!products.containsKey(code)) {
+                addError(errors, count.lineNumber, "Kode product tidak ditemukan: " + code);
+            }
+        });
+
+        if (!errors.isEmpty()) {
+            List<String> report = errors.values().stream()
+                    .limit(MAX_REPORTED_ERRORS)
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            if (errors.size() > MAX_REPORTED_ERRORS) {
+                report.add("... dan " + (errors.size() - MAX_REPORTED_ERRORS) + " error lainnya");
+            }
+            return new UploadResult(null, report);
+        }
+
+        StockTake stockTake = new StockTake();
+        stockTake.setNote(note == null || note.isBlank() ? null : note.strip());
+        stockTake.setStatus(StockTakeStatus.DRAFT);
+
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        int varianceCount = 0;
+        BigDecimal shortage = BigDecimal.ZERO;
+        BigDecimal surplus = BigDecimal.ZERO;
+
+        for (Map.Entry<String, Count> entry : counts.entrySet()) {
+            ProductStockView product = products.get(entry.getKey());
+
+            int system = onHand(product);
+            int counted = entry.getValue().quantity;
+            int difference = counted - system;
+
+            if (difference != 0) {
+                varianceCount++;
+
+                BigDecimal value = product.unitCost().multiply(BigDecimal.valueOf(difference));
+                if (difference < 0) {
+                    shortage = shortage.add(value);
+                } else {
+                    surplus = surplus.add(value);
+                }
+            }
+
+            rows.add(new Object[] { product.id(), system, counted, difference, product.unitCost() });
+        }
+
+        stockTake.setLineCount(rows.size());
+        stockTake.setVarianceCount(varianceCount);
+        stockTake.setShortageValue(shortage.setScale(2, RoundingMode.HALF_UP));
+        stockTake.setSurplusValue(surplus.setScale(2, RoundingMode.HALF_UP));
+
+        stockTake = stockTakeRepository.saveAndFlush(stockTake);
+
+        // Baris selisih disimpan lewat JDBC batch: id IDENTITY membuat Hibernate mengirim insert satu per satu
+        Long stockTakeId = stockTake.getId();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO stock_adjustment "
+                            + "(stock_take_id, product_id, system_quantity, counted_quantity, difference, unit_cost) "
+                            + "VALUES (?, ?, ?, ?, ?, ?)",
+                    batch.stream()
+                            .map(r -> new Object[] { stockTakeId, r[0], r[1], r[2], r[3], r[4] })
+                            .toList());
+        }
+
+        return new UploadResult(stockTake, List.of());
+    }
+
+    // Method untuk menerapkan selisih sesi ke stok produk. Selisih ditambahkan ke stok saat ini
+    // (bukan menimpa dengan hasil hitung), jadi penjualan setelah penghitungan tetap terhitung
+    @Transactional
+    public StockTake apply(Long stockTakeId) {
+        StockTake stockTake = stockTakeRepository.findForUpdate(stockTakeId)
+                .orElseThrow(() -> new IllegalArgumentException("Stock opname tidak ditemukan"));
+
+        if (stockTake.getStatus() != StockTakeStatus.DRAFT) {
+            throw new IllegalStateException("Stock opname sudah diterapkan atau dibatalkan");
+        }
+
+        Map<Long, Integer> differences = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT product_id, difference FROM stock_adjustment "
+                        + "WHERE stock_take_id = ? AND difference <> 0",
+                rs -> {
+                    differences.put(rs.getLong(1), rs.getInt(2));
+                },
+                stockTakeId);
+
+        List<Object[]> rows = new ArrayList<>(differences.size());
+        differences.forEach((productId, difference) -> rows.add(new Object[] { difference, productId }));
+
+        // Quantity yang dinilai ikut disesuaikan (selisih dinilai pada harga pokok rata-rata),
+        // kecuali produk yang harga pokoknya belum pernah dihitung
+        String sql = stockEngine.isEnabled()
+                ? "UPDATE product SET costed_quantity = costed_quantity + ? "
+                        + "WHERE id = ? AND average_cost IS NOT NULL"
+                : "UPDATE product SET current_stock = current_stock + ?, "
+                        + "costed_quantity = CASE WHEN average_cost IS NULL "
+                        + "THEN costed_quantity ELSE costed_quantity + ? END, change_seq = ? WHERE id = ?";
+
+        long changeSeq = stockEngine.isEnabled() || rows.isEmpty() ? 0 : changeSequence.next();
+
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+
+            jdbcTemplate.batchUpdate(sql, stockEngine.isEnabled() ? batch
+                    : batch.stream().map(r -> new Object[] { r[0], r[0], changeSeq, r[1] }).toList());
+        }
+
+        entityCacheService.evictAfterCommit(Product.class, differences.keySet());
+
+        if (stockEngine.isEnabled() && !differences.isEmpty()) {
+            stockEngine.restockAll(differences);
+        }
+
+        stockTake.setStatus(StockTakeStatus.APPLIED);
+        stockTake.setAppliedAt(LocalDateTime.now());
+
+        reorderService.refreshAfterCommit(differences.keySet());
+        return stockTake;
+    }
+
+    // Method untuk membatalkan sesi yang belum diterapkan
+    @Transactional
+    public void cancel(Long stockTakeId) {
+        StockTake stockTake = stockTakeRepository.findForUpdate(stockTakeId)
+                .orElseThrow(() -> new IllegalArgumentException("Stock opname tidak ditemukan"));
+
+        if (stockTake.getStatus() != StockTakeStatus.DRAFT) {
+            throw new IllegalStateException("Stock opname sudah diterapkan atau dibatalkan");
+        }
+
+        stockTake.setStatus(StockTakeStatus.CANCELLED);
+    }
+
+    // Method untuk mengambil sesi stock opname terbaru
+    public List<StockTake> getRecent() {
+        return stockTakeRepository.findTop20ByOrderByIdDesc();
+    }
+
+    // Method untuk mengambil laporan selisih per nilai (terbesar dulu)
+    public VarianceReport getReport(Long stockTakeId) {
+        StockTake stockTake = stockTakeRepository.findById(stockTakeId)
+                .orElseThrow(() -> new IllegalArgumentException("Stock opname tidak ditemukan"));
+
+        return new VarianceReport(stockTake, stockAdjustmentRepository
+                .findVarianceViews(stockTakeId, PageRequest.of(0, reportSize)));
+    }
+
+    // Lookup per batch kode supaya parameter IN tetap kecil berapa pun jumlah produk di file
+    private Map<String, ProductStockView> findProducts(Iterable<String> codes) {
+        Map<String, ProductStockView> products = new HashMap<>();
+        List<String> batch = new ArrayList<>(batchSize);
+
+        for (String code : codes) {
+            batch.add(code);
+
+            if (batch.size() == batchSize) {
+                productRepository.findStockViewsByCodeUpperIn(batch)
+                        .forEach(p -> products.put(p.productCode(), p));
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            productRepository.findStockViewsByCodeUpperIn(batch)
+                    .forEach(p -> products.put(p.productCode(), p));
+        }
+
+        return products;
+    }
+
+    // Stok sistem = posisi di stock engine jika aktif (database bisa tertinggal beberapa ratus ms)
+    private int onHand(ProductStockView product) {
+        if (stockEngine.isEnabled()) {
+            StockLevel level = stockEngine.getLevel(product.id());
+            if (level != null) {
+                return level.onHand();
+            }
+        }
+        return product.currentStock();
+    }
+
+    // Baca file baris per baris; "kode" saja berarti satu hasil scan (quantity 1),
+    // "kode,quantity" atau "kode;quantity" untuk hasil hitung. Kode yang sama dijumlahkan
+    private Map<String, Count> parse(InputStream in, SortedMap<Integer, String> errors) throws IOException {
+
+        Map<String, Count> counts = new LinkedHashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+
+            String raw;
+            int lineNumber = 0;
+
+            while ((raw = reader.readLine()) != null) {
+                lineNumber++;
+
+                String text = raw.strip();
+                if (lineNumber == 1 && text.startsWith("\uFEFF")) {
+                    text = text.substring(1);
+                }
+
+                if (text.isEmpty()) {
+                    continue;
+                }
+
+                String[] cols = text.split("[,;]");
+
+                if (lineNumber == 1 && cols[0].strip().equalsIgnoreCase("productCode")) {
+                    continue;
+                }
+
+                String code = cols[0].strip().toUpperCase(Locale.ROOT);
+                if (code.isEmpty()) {
+                    addError(errors, lineNumber, "Kode product harus diisi");
+                    continue;
+                }
+
+                int quantity;
+
+                try {
+                    quantity = cols.length < 2 ? 1 : Integer.parseInt(cols[1].strip());
+                } catch (NumberFormatException e) {
+                    addError(errors, lineNumber, "Quantity bukan angka");
+                    continue;
+                }
+
+                if (quantity < 0) {
+                    addError(errors, lineNumber, "Quantity tidak boleh negatif");
+                    continue;
+                }
+
+                int firstLine = lineNumber;
+                counts.computeIfAbsent(code, k -> new Count(firstLine)).quantity += quantity;
+            }
+        }
+
+        return counts;
+    }
+
+    private void addError(SortedMap<Integer, String> errors, int lineNumber, String message) {
+        errors.put(lineNumber, "Baris " + lineNumber + ": " + message);
+    }
+}
@@ -0,0 +1,276 @@
+package com.app.management.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.app.management.model.SupplierProductStats;
+import com.app.management.model.SupplierStats;
+import com.app.management.model.product.Product;
+import com.app.management.model.purchase.Purchase;
+import com.app.management.model.purchase.PurchaseDetails;
+import com.app.management.model.purchase.PurchaseStatus;
+import com.app.management.repository.PurchaseRepository;
+import com.app.management.repository.SupplierProductStatsRepository;
+import com.app.management.repository.SupplierStatsRepository;
+
+import jakarta.transaction.Transactional;
+
+// Agregat pembelian per supplier dan per supplier x produk, diperbarui inkremental oleh PurchaseService.
+// Halaman analitik hanya membaca tabel agregat ini, tidak pernah memindai purchase_details.
+@Service
+public class SupplierAnalyticsService {
+
+    @Autowired
+    private SupplierStatsRepository supplierStatsRepository;
+
+    @Autowired
+    private SupplierProductStatsRepository supplierProductStatsRepository;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private SupplierDirectory supplierDirectory;
+
+    @Autowired
+    private SupplierPriceCatalog supplierPriceCatalog;
+
+    public record ProductPriceView(
+            Long productId,
+            String productName,
+            int totalQuantity,
+            BigDecimal totalCost,
+            BigDecimal averageUnitPrice,
+            BigDecimal lastUnitPrice,
+            BigDecimal priceTrendPercent) {
+    }
+
+    public record SupplierAnalyticsView(
+            Long supplierId,
+            String supplierName,
+            BigDecimal totalSpend,
+            int purchaseCount,
+            LocalDateTime lastPurchaseDate,
+            BigDecimal averageLeadTimeHours,
+            List<ProductPriceView> products) {
+    }
+
+    // Method untuk mencatat purchase yang baru diselesaikan ke agregat supplier
+    public void recordCompleted(Purchase purchase) {
+        apply(purchase, 1);
+    }
+
+    // Method untuk mengeluarkan purchase yang sudah selesai lalu dibatalkan dari agregat supplier
+    public void recordCancelled(Purchase purchase) {
+        apply(purchase, -1);
+    }
+
+    // Method untuk mengambil analitik seluruh supplier, diurutkan berdasarkan spend / frekuensi / terbaru
+    public List<SupplierAnalyticsView> getAnalytics(String sort) {
+
+        Map<Long, List<ProductPriceView>> productsBySupplier = new HashMap<>();
+
+        for (SupplierProductStats s : supplierProductStatsRepository.findAllWithProduct()) {
+            if (s.getTotalQuantity() <= 0) {
+                continue;
+            }
+
+            BigDecimal average = s.getTotalCost()
+                    .divide(BigDecimal.valueOf(s.getTotalQuantity()), 2, RoundingMode.HALF_UP);
+
+            productsBySupplier.computeIfAbsent(s.getSupplierId(), k -> new ArrayList<>())
+                    .add(new ProductPriceView(
+                            s.getProduct().getId(),
+                            s.getProduct().getProductName(),
+                            s.getTotalQuantity(),
+                            s.getTotalCost(),
+                            average,
+                            s.getLastUnitPrice(),
+                            trend(s.getLastUnitPrice(), average)));
+        }
+
+        productsBySupplier.values()
+                .forEach(list -> list.sort(Comparator.comparing(ProductPriceView::totalCost).reversed()));
+
+        Map<Long, String> names = supplierDirectory.getOptions().stream()
+                .collect(Collectors.toMap(SupplierDirectory.Option::id, SupplierDirectory.Option::supplierName));
+
+        Comparator<SupplierAnalyticsView> order = switch (sort == null ? "" : sort) {
+            case "count" -> Comparator.comparingInt(SupplierAnalyticsView::purchaseCount).reversed();
+            case "recent" -> Comparator.comparing(SupplierAnalyticsView::lastPurchaseDate,
+                    Comparator.nullsLast(Comparator.reverseOrder()));
+            default -> Comparator.comparing(SupplierAnalyticsView::totalSpend).reversed();
+        };
+
+        return supplierStatsRepository.findAll().stream()
+                .filter(s -> s.getPurchaseCount() > 0)
+                .map(s -> {
+                    List<ProductPriceView> products = productsBySupplier
+                            .getOrDefault(s.getSupplierId(), List.of());
+
+                    return new SupplierAnalyticsView(
+                            s.getSupplierId(),
+                            names.getOrDefault(s.getSupplierId(), "#" + s.getSupplierId()),
+                            s.getTotalSpend(),
+                            s.getPurchaseCount(),
+                            s.getLastPurchaseDate(),
+                            s.getLeadTimeCount() > 0
+                                    ? BigDecimal.valueOf(s.getTotalLeadTimeMinutes())
+                                            .divide(BigDecimal.valueOf(s.getLeadTimeCount() * 60L), 1,
+                                                    RoundingMode.HALF_UP)
+                                    : null,
+                            products);
+                })
+                .sorted(order)
+                .toList();
+    }
+
+    // Isi tabel agregat dari purchase yang sudah ada, sekali saja saat tabel masih kosong
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (supplierStatsRepository.count() > 0) {
+            return;
+        }
+
+        purchaseRepository.findAllWithDetailsByStatus(PurchaseStatus.COMPLETED)
+                .forEach(this::recordCompleted);
+    }
+
+    // sign = 1 untuk purchase selesai, -1 untuk pembatalan purchase yang sudah selesai
+    private void apply(Purchase purchase, int sign) {
+
+        if (purchase.getSupplier() == null || purchase.getPurchaseDetails().isEmpty()) {
+            return;
+        }
+
+        Long supplierId = purchase.getSupplier().getId();
+
+        // Baris agregat dibuat dulu (insert ignore) baru dikunci: mengunci baris yang belum ada
+        // membuat dua purchase pertama yang selesai bersamaan sama-sama insert dan salah satunya gagal
+        if (sign > 0) {
+            supplierStatsRepository.insertIfAbsent(supplierId);
+        }
+
+        Optional<SupplierStats> current = supplierStatsRepository.findForUpdate(supplierId);
+        if (current.isEmpty()) {
+            return;
+        }
+        SupplierStats stats = current.get();
+
+        BigDecimal spend = purchase.getTotalPurchase() != null
+                ? purchase.getTotalPurchase()
+                : purchase.getPurchaseDetails().stream()
+                        .map(PurchaseDetails::getSubtotal)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        stats.setTotalSpend(stats.getTotalSpend().add(spend.multiply(BigDecimal.valueOf(sign))));
+        stats.setPurchaseCount(stats.getPurchaseCount() + sign);
+
+        LocalDateTime receivedAt = purchase.getCompletedAt() != null
+                ? purchase.getCompletedAt()
+                : purchase.getPurchaseDate();
+
+        // Tanggal terakhir hanya maju; pembatalan tidak menghitung ulang dari riwayat
+        if (sign > 0 && receivedAt != null
+                && (stats.getLastPurchaseDate() == null || receivedAt.isAfter(stats.getLastPurchaseDate()))) {
+            stats.setLastPurchaseDate(receivedAt);
+        }
+
+        if (purchase.getCompletedAt() != null && purchase.getPurchaseDate() != null) {
+            long minutes = Duration.between(purchase.getPurchaseDate(), purchase.getCompletedAt()).toMinutes();
+            stats.setTotalLeadTimeMinutes(stats.getTotalLeadTimeMinutes() + sign * minutes);
+            stats.setLeadTimeCount(stats.getLeadTimeCount() + sign);
+        }
+
+        supplierStatsRepository.save(stats);
+
+        // Gabungkan detail per produk: quantity & nilai dijumlah, harga terakhir = baris terakhir
+        Map<Long, PurchaseDetails> lastLine = new LinkedHashMap<>();
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, BigDecimal> costs = new HashMap<>();
+
+        for (PurchaseDetails d : purchase.getPurchaseDetails()) {
+            Long productId = d.getProduct().getId();
+            lastLine.put(productId, d);
+            quantities.merge(productId, d.getQuantity(), Integer::sum);
+            costs.merge(productId, d.getSubtotal(), BigDecimal::add);
+        }
+
+        // Urutan id tetap supaya dua transaksi tidak saling menunggu baris masing-masing
+        if (sign > 0) {
+            new TreeSet<>(lastLine.keySet())
+                    .forEach(productId -> supplierProductStatsRepository.insertIfAbsent(supplierId, productId));
+        }
+
+        Map<Long, SupplierProductStats> existing = supplierProductStatsRepository
+                .findForUpdate(supplierId, lastLine.keySet()).stream()
+                .collect(Collectors.toMap(s -> s.getProduct().getId(), Function.identity()));
+
+        List<SupplierProductStats> changed = new ArrayList<>();
+
+        for (Map.Entry<Long, PurchaseDetails> e : lastLine.entrySet()) {
+
+            Long productId = e.getKey();
+            int quantity = quantities.get(productId);
+
+            // Hanya pembatalan yang bisa tidak menemukan baris (data sebelum analitik ada)
+            SupplierProductStats s = existing.get(productId);
+            if (s == null) {
+                continue;
+            }
+
+            s.setTotalQuantity(s.getTotalQuantity() + sign * quantity);
+            s.setTotalCost(s.getTotalCost().add(costs.get(productId).multiply(BigDecimal.valueOf(sign))));
+            s.setPurchaseCount(s.getPurchaseCount() + sign);
+
+            if (sign > 0) {
+                s.setPreviousUnitPrice(s.getLastUnitPrice());
+                s.setPreviousQuantity(s.getLastQuantity());
+                s.setLastPurchaseId(purchase.getId());
+                s.setLastUnitPrice(e.getValue().getUnitPurchasePrice());
+                s.setLastQuantity(quantity);
+                s.setLastPurchaseDate(receivedAt);
+            } else if (purchase.getId().equals(s.getLastPurchaseId())) {
+                s.setLastUnitPrice(s.getPreviousUnitPrice());
+                s.setLastQuantity(s.getPreviousQuantity());
+                s.setLastPurchaseId(null);
+                s.setPreviousUnitPrice(null);
+                s.setPreviousQuantity(null);
+            }
+
+            changed.add(s);
+        }
+
+        supplierProductStatsRepository.saveAll(changed);
+        supplierPriceCatalog.updateAfterCommit(changed);
+    }
+
+    // Selisih harga terakhir terhadap rata-rata, dalam persen
+    private BigDecimal trend(BigDecimal last, BigDecimal average) {
+        if (last == null || average.signum() == 0) {
+            return null;
+        }
+
+        return last.subtract(average)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(average, 1, RoundingMode.HALF_UP);
+    }
+}
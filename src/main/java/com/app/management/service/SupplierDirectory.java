@@ -0,0 +1,165 @@
+package com.app.management.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.app.management.model.Supplier;
+import com.app.management.repository.SupplierRepository;
+
+// Salinan data supplier di memori untuk dropdown purchase dan halaman supplier.
+// Snapshot immutable diganti utuh setiap ada perubahan (supplier jarang berubah, sering dibaca),
+// jadi pembaca tidak perlu lock dan tidak pernah melihat data setengah jadi.
+@Component
+public class SupplierDirectory {
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    private volatile Snapshot snapshot;
+
+    // Baris dropdown: cukup id dan nama
+    public record Option(Long id, String supplierName) {
+    }
+
+    // Baris halaman supplier beserta kunci pencarian yang sudah dinormalisasi
+    public record Entry(
+            Long id,
+            String supplierName,
+            String telephoneNumber,
+            String address,
+            String nameKey,
+            String searchKey,
+            String phoneDigits) {
+    }
+
+    private record Snapshot(
+            Map<Long, Entry> byId,
+            List<Entry> byIdDesc,
+            List<Entry> byName,
+            List<Option> options) {
+    }
+
+    // Method untuk mengambil daftar id-nama supplier, urut nama
+    public List<Option> getOptions() {
+        return snapshot().options();
+    }
+
+    // Method untuk mengambil seluruh supplier urut id terbaru atau urut nama
+    public List<Entry> getEntries(boolean byName) {
+        Snapshot current = snapshot();
+        return byName ? current.byName() : current.byIdDesc();
+    }
+
+    // Method untuk mencari supplier yang nama / telepon / alamatnya memuat keyword
+    public List<Entry> search(String keyword, boolean byName) {
+        String key = normalize(keyword);
+        String digits = digitsOf(keyword);
+
+        // Keyword berbentuk nomor telepon dicocokkan tanpa spasi / tanda hubung / kurung
+        boolean phoneLike = !digits.isEmpty() && keyword.strip().matches("[\\d\\s\\+\\()-]+");
+
+        return getEntries(byName).stream()
+                .filter(e -> e.searchKey().contains(key)
+                        || (phoneLike && e.phoneDigits().contains(digits)))
+                .toList();
+    }
+
+    // Method untuk mengambil id supplier yang namanya diawali prefix (case / aksen diabaikan)
+    public List<Long> findIdsByNamePrefix(String prefix) {
+        String key = normalize(prefix);
+
+        return snapshot().byName().stream()
+                .filter(e -> e.nameKey().startsWith(key))
+                .map(Entry::id)
+                .toList();
+    }
+
+    // Method untuk memperbarui satu supplier di cache setelah disimpan
+    public synchronized void put(Supplier supplier) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+
+        Map<Long, Entry> byId = new HashMap<>(current.byId());
+        byId.put(supplier.getId(), toEntry(supplier));
+        snapshot = build(byId.values());
+    }
+
+    // Method untuk memuat ulang seluruh cache dari database
+    public synchronized void reload() {
+        snapshot = build(supplierRepository.findAll().stream()
+                .map(SupplierDirectory::toEntry)
+                .toList());
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static Snapshot build(Collection<Entry> entries) {
+        Map<Long, Entry> byId = new HashMap<>();
+        entries.forEach(e -> byId.put(e.id(), e));
+
+        List<Entry> byIdDesc = new ArrayList<>(entries);
+        byIdDesc.sort(Comparator.comparing(Entry::id).reversed());
+
+        List<Entry> byName = new ArrayList<>(entries);
+        byName.sort(Comparator.comparing(Entry::nameKey).thenComparing(Entry::id));
+
+        List<Option> options = byName.stream()
+                .map(e -> new Option(e.id(), e.supplierName()))
+                .toList();
+
+        return new Snapshot(Map.copyOf(byId), List.copyOf(byIdDesc), List.copyOf(byName), options);
+    }
+
+    private static Entry toEntry(Supplier s) {
+        String nameKey = normalize(s.getSupplierName());
+
+        // Pemisah \0 mencegah keyword cocok melintasi batas dua kolom
+        String searchKey = nameKey + '\0'
+                + normalize(s.getTelephoneNumber()) + '\0'
+                + normalize(s.getAddress());
+
+        return new Entry(
+                s.getId(),
+                s.getSupplierName(),
+                s.getTelephoneNumber(),
+                s.getAddress(),
+                nameKey,
+                searchKey,
+                digitsOf(s.getTelephoneNumber()));
+    }
+
+    // Huruf kecil, tanpa aksen, spasi berulang dirapikan
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    private static String digitsOf(String value) {
+        return value == null ? "" : value.replaceAll("\\D", "");
+    }
+}
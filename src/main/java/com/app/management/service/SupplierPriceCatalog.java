@@ -0,0 +1,100 @@
+package com.app.management.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.management.model.SupplierProductStats;
+import com.app.management.repository.SupplierProductStatsRepository;
+
+// Harga beli terakhir per (supplier, produk) di memori, untuk prefill form purchase.
+// Sumbernya tabel supplier_product_stats; map per supplier diganti utuh saat ada perubahan
+// sehingga satu lookup supplier langsung mengembalikan semua baris prefill-nya.
+@Component
+public class SupplierPriceCatalog {
+
+    @Autowired
+    private SupplierProductStatsRepository supplierProductStatsRepository;
+
+    private final Map<Long, Map<Long, PriceHint>> bySupplier = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    // Harga terakhir dan quantity terakhir yang dibeli dari supplier untuk satu produk
+    public record PriceHint(BigDecimal unitPurchasePrice, Integer quantity) {
+    }
+
+    // Method untuk mengambil seluruh prefill (productId -> harga & quantity) untuk satu supplier
+    public Map<Long, PriceHint> getHints(Long supplierId) {
+        ensureLoaded();
+        return bySupplier.getOrDefault(supplierId, Map.of());
+    }
+
+    // Method untuk menerapkan perubahan agregat ke cache setelah transaksi purchase commit
+    public void updateAfterCommit(Collection<SupplierProductStats> changed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update(changed);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update(changed);
+            }
+        });
+    }
+
+    // Memakai monitor yang sama dengan load: perubahan yang commit saat findAll() sedang berjalan
+    // menunggu load selesai lalu diterapkan di atas hasilnya, bukan dibuang karena loaded masih false
+    private synchronized void update(Collection<SupplierProductStats> changed) {
+        if (!loaded) {
+            return;
+        }
+
+        for (SupplierProductStats s : changed) {
+            bySupplier.compute(s.getSupplierId(), (id, current) -> {
+                Map<Long, PriceHint> next = current == null ? new HashMap<>() : new HashMap<>(current);
+                put(next, s);
+                return Map.copyOf(next);
+            });
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            Map<Long, Map<Long, PriceHint>> all = new HashMap<>();
+            for (SupplierProductStats s : supplierProductStatsRepository.findAll()) {
+                put(all.computeIfAbsent(s.getSupplierId(), id -> new HashMap<>()), s);
+            }
+
+            all.forEach((supplierId, hints) -> bySupplier.put(supplierId, Map.copyOf(hints)));
+            loaded = true;
+        }
+    }
+
+    private static void put(Map<Long, PriceHint> hints, SupplierProductStats s) {
+        Long productId = s.getProduct().getId();
+
+        if (s.getLastUnitPrice() == null || s.getTotalQuantity() <= 0) {
+            hints.remove(productId);
+        } else {
+            hints.put(productId, new PriceHint(s.getLastUnitPrice(), s.getLastQuantity()));
+        }
+    }
+}
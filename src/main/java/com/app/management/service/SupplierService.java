@@ -5,7 +5,6 @@ import com.app.management.repository.SupplierRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
@@ -15,10 +14,21 @@ public class SupplierService {
         @Autowired
         private SupplierRepository supplierRepository;
 
+        @Autowired
+        private SupplierDirectory supplierDirectory;
+
+        @Autowired
+        private RenderedPageCache renderedPageCache;
+
         // Method untuk mengambil seluruh data supplier tanpa filter
         public List<Supplier> getAllSuppliers() {
                 return supplierRepository.findAll();
         }
+
+        // Method untuk mengambil pilihan supplier (id dan nama) untuk dropdown dari cache
+        public List<SupplierDirectory.Option> getSupplierOptions() {
+                return supplierDirectory.getOptions();
+        }
         
         // Method untuk mengambil satu supplier berdasarkan ID dengan validasi
         // keberadaan data
@@ -32,7 +42,10 @@ public class SupplierService {
 
                 validateSupplier(supplier);
 
-                return supplierRepository.save(supplier);
+                Supplier saved = supplierRepository.save(supplier);
+                supplierDirectory.put(saved);
+
+                return saved;
         }
 
         // Method untuk memperbarui data supplier berdasarkan ID dengan validasi
@@ -44,6 +57,12 @@ public class SupplierService {
                 return supplierRepository.findById(id)
                                 .map(existing -> {
 
+                                        // Nama supplier tampil di halaman purchase yang di-cache
+                                        if (!newData.getSupplierName()
+                                                        .equals(existing.getSupplierName())) {
+                                                renderedPageCache.clearAfterCommit();
+                                        }
+
                                         existing.setSupplierName(
                                                         newData.getSupplierName());
                                         existing.setTelephoneNumber(
@@ -51,49 +70,28 @@ public class SupplierService {
                                         existing.setAddress(
                                                         newData.getAddress());
 
-                                        return supplierRepository.save(existing);
+                                        Supplier saved = supplierRepository.save(existing);
+                                        supplierDirectory.put(saved);
+
+                                        return saved;
                                 })
                                 .orElseThrow(() -> new IllegalArgumentException("Supplier tidak ditemukan"));
         }
 
         // Method untuk mencari dan mengurutkan supplier berdasarkan keyword dan
-        // parameter sorting
-        public List<Supplier> searchAndSort(
+        // parameter sorting (dari cache supplier, tanpa query ke database)
+        public List<SupplierDirectory.Entry> searchAndSort(
                         String keyword,
                         String sort) {
 
-                Sort sortOrder;
-
-                switch (sort) {
-                        case "name_asc":
-                                sortOrder = Sort.by("supplierName").ascending();
-                                break;
-                        case "name_desc":
-                                sortOrder = Sort.by("supplierName").descending();
-                                break;
-                        default:
-                                sortOrder = Sort.by("id").descending();
-                }
+                boolean byName = sort.startsWith("name_");
+
+                List<SupplierDirectory.Entry> suppliers = (keyword != null && !keyword.isBlank())
+                                ? supplierDirectory.search(keyword, byName)
+                                : supplierDirectory.getEntries(byName);
 
-                List<Supplier> suppliers = supplierRepository.findAll(sortOrder);
-
-                if (keyword != null && !keyword.isBlank()) {
-
-                        String key = keyword.toLowerCase();
-
-                        suppliers = suppliers.stream()
-                                        .filter(s -> s.getSupplierName()
-                                                        .toLowerCase()
-                                                        .contains(key)
-                                                        ||
-                                                        s.getTelephoneNumber()
-                                                                        .toLowerCase()
-                                                                        .contains(key)
-                                                        ||
-                                                        s.getAddress()
-                                                                        .toLowerCase()
-                                                                        .contains(key))
-                                        .toList();
+                if ("name_desc".equals(sort)) {
+                        suppliers = suppliers.reversed();
                 }
 
                 return suppliers;
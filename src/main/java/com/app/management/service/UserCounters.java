@@ -0,0 +1,119 @@
+package com.app.management.service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.management.model.user.Role;
+import com.app.management.model.user.User;
+import com.app.management.model.user.UserStatus;
+import com.app.management.repository.UserRepository;
+
+// Snapshot jumlah user per role dan status untuk dashboard admin, dimuat dengan satu query GROUP BY.
+// Setiap kali user didaftarkan, diubah statusnya, atau dihapus, snapshot dibuang setelah commit dan
+// dimuat ulang saat dibaca berikutnya (bukan ditambah / dikurangi: snapshot yang dimuat di antara
+// commit dan afterCommit sudah memuat perubahan itu, sehingga increment akan menghitungnya dua kali).
+// Halaman daftar user pending juga disimpan dan dibuang setiap kali jumlah user pending berubah
+@Component
+public class UserCounters {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.admin.pending-page-size:20}")
+    private int pendingPageSize;
+
+    public record PendingUser(Long id, String name, String email, LocalDateTime createdAt) {
+    }
+
+    // null = belum dimuat dari database
+    private Map<Role, Map<UserStatus, Long>> counts;
+
+    private final Map<Integer, List<PendingUser>> pendingPages = new HashMap<>();
+
+    // Method untuk mengambil jumlah user dengan status tertentu (semua role)
+    public synchronized long countByStatus(UserStatus status) {
+        return snapshot().values().stream()
+                .mapToLong(byStatus -> byStatus.getOrDefault(status, 0L))
+                .sum();
+    }
+
+    // Method untuk mengambil jumlah seluruh user selain admin
+    public synchronized long countExcludingAdmin() {
+        return snapshot().entrySet().stream()
+                .filter(entry -> entry.getKey() != Role.ADMIN)
+                .flatMap(entry -> entry.getValue().values().stream())
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    // Method untuk mengambil satu halaman user pending; nomor halaman di luar jangkauan
+    // dipindah ke halaman terakhir
+    public synchronized Page<PendingUser> getPendingPage(int page) {
+        long total = countByStatus(UserStatus.PENDING);
+        int lastPage = (int) Math.max((total - 1) / pendingPageSize, 0);
+        int number = Math.min(Math.max(page, 0), lastPage);
+
+        PageRequest pageable = PageRequest.of(number, pendingPageSize);
+        List<PendingUser> content = pendingPages.computeIfAbsent(number, n ->
+                userRepository.findByStatusOrderByIdAsc(UserStatus.PENDING, pageable).stream()
+                        .map(u -> new PendingUser(u.getId(), u.getName(), u.getEmail(), u.getCreatedAt()))
+                        .toList());
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // Method untuk mencatat perpindahan status user setelah transaksi commit.
+    // from = null berarti user baru, to = null berarti user dihapus
+    public void changedAfterCommit(UserStatus from, UserStatus to) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(from, to);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(from, to);
+            }
+        });
+    }
+
+    private synchronized void invalidate(UserStatus from, UserStatus to) {
+        if (from == to) {
+            return;
+        }
+
+        if (from == UserStatus.PENDING || to == UserStatus.PENDING) {
+            pendingPages.clear();
+        }
+
+        counts = null;
+    }
+
+    private Map<Role, Map<UserStatus, Long>> snapshot() {
+        if (counts == null) {
+            Map<Role, Map<UserStatus, Long>> loaded = new EnumMap<>(Role.class);
+
+            for (Object[] row : userRepository.countGroupByRoleAndStatus()) {
+                loaded.computeIfAbsent((Role) row[0], r -> new EnumMap<>(UserStatus.class))
+                        .put((UserStatus) row[1], (Long) row[2]);
+            }
+
+            counts = loaded;
+        }
+
+        return counts;
+    }
+}
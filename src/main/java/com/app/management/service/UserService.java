@@ -10,6 +10,7 @@ import jakarta.transaction.Transactional;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -18,24 +19,32 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCounters userCounters;
+
     // Method untuk mengambil daftar user yang masih menunggu persetujuan admin
     public List<User> getPendingUsers() {
         return userRepository.findByStatus(UserStatus.PENDING);
     }
 
+    // Method untuk mengambil satu halaman user pending (dari snapshot di memori)
+    public Page<UserCounters.PendingUser> getPendingUserPage(int page) {
+        return userCounters.getPendingPage(page);
+    }
+
     // Method untuk menghitung total user selain admin
     public long getTotalUserCount() {
-        return userRepository.countAllUsersExcludingAdmin();
+        return userCounters.countExcludingAdmin();
     }
 
     // Method untuk menghitung jumlah user dengan status pending
     public long getPendingUserCount() {
-        return userRepository.countByStatus(UserStatus.PENDING);
+        return userCounters.countByStatus(UserStatus.PENDING);
     }
 
     // Method untuk menghitung jumlah user dengan status aktif
     public long getActiveUserCount() {
-        return userRepository.countByStatus(UserStatus.ACTIVE);
+        return userCounters.countByStatus(UserStatus.ACTIVE);
     }
 
     // Method untuk mengambil daftar staff berdasarkan satu status tertentu
@@ -60,6 +69,7 @@ public class UserService {
                 .orElseThrow(() ->
                         new IllegalStateException("User tidak ditemukan"));
 
+        userCounters.changedAfterCommit(user.getStatus(), UserStatus.ACTIVE);
         user.setStatus(UserStatus.ACTIVE);
     }
 
@@ -71,6 +81,7 @@ public class UserService {
                 .orElseThrow(() ->
                         new IllegalStateException("User tidak ditemukan"));
 
+        userCounters.changedAfterCommit(user.getStatus(), UserStatus.REJECTED);
         user.setStatus(UserStatus.REJECTED);
     }
 
@@ -89,6 +100,7 @@ public class UserService {
                     "Hanya staff yang bisa diban");
         }
 
+        userCounters.changedAfterCommit(target.getStatus(), UserStatus.BANNED);
         target.setStatus(UserStatus.BANNED);
     }
 
@@ -108,6 +120,7 @@ public class UserService {
         }
 
         userRepository.delete(target);
+        userCounters.changedAfterCommit(UserStatus.BANNED, null);
     }
 
     private void validateAdmin(User admin) {
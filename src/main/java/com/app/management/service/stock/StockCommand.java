@@ -0,0 +1,26 @@
+package com.app.management.service.stock;
+
+import java.util.concurrent.CompletableFuture;
+
+// Perintah yang diantrikan ke writer pemilik produk; hasilnya stok on-hand setelah perintah dijalankan
+record StockCommand(
+        Type type,
+        long productId,
+        int quantity,
+        CompletableFuture<StockLevel> result) {
+
+    enum Type {
+        // Tahan stok tanpa mengurangi on-hand
+        RESERVE,
+        // Lepas stok yang sebelumnya ditahan
+        RELEASE,
+        // Tahan stok tanpa validasi (memulihkan reservasi aktif saat startup)
+        HOLD,
+        // Kurangi on-hand (penjualan selesai)
+        DEDUCT,
+        // Kurangi on-hand dari stok yang sebelumnya ditahan
+        COMMIT,
+        // Tambah on-hand (pembelian selesai); quantity negatif dipakai untuk pembatalan pembelian
+        RESTOCK
+    }
+}
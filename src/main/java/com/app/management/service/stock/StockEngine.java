@@ -0,0 +1,586 @@
+package com.app.management.service.stock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.management.model.product.Product;
+import com.app.management.service.ChangeSequence;
+import com.app.management.service.EntityCacheService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Stock engine opsional (app.stock-engine.enabled). Setiap produk dimiliki tepat satu writer thread
+// (shard = productId mod jumlah writer) sehingga perubahan stok produk yang sama tidak pernah
+// berebut row lock di database. Perintah divalidasi dan di-ack dari memori; perubahan on-hand
+// dicatat ke tabel stock_journal di transaksi pemanggil, lalu writer menulis delta yang sudah
+// digabung per produk ke product.current_stock secara batch setelah transaksi itu commit.
+// Jika transaksi pemanggil di-rollback, perubahan di memori dibatalkan dan baris journal ikut hilang;
+// jika aplikasi mati sebelum commit, journal tidak pernah berisi perubahan tersebut.
+@Component
+@DependsOn("entityManagerFactory")
+public class StockEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StockEngine.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Value("${app.stock-engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.stock-engine.writers:4}")
+    private int writerCount;
+
+    @Value("${app.stock-engine.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${app.stock-engine.max-batch:256}")
+    private int maxBatch;
+
+    @Value("${app.stock-engine.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${app.stock-engine.flush-batch:1000}")
+    private int flushBatch;
+
+    @Value("${app.stock-engine.ack-timeout-ms:5000}")
+    private long ackTimeoutMs;
+
+    private final Map<Long, StockLevel> levels = new ConcurrentHashMap<>();
+
+    private StockJournal journal;
+
+    private Writer[] writers;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        journal = new StockJournal(jdbcTemplate);
+        recover();
+
+        writers = new Writer[writerCount];
+        for (int shard = 0; shard < writerCount; shard++) {
+            writers[shard] = new Writer(shard);
+        }
+
+        for (Writer writer : writers) {
+            writer.thread.start();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writers == null) {
+            return;
+        }
+
+        for (Writer writer : writers) {
+            writer.running = false;
+        }
+        for (Writer writer : writers) {
+            writer.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Perintah yang mengubah on-hand (deduct, restock, commit) dicatat ke journal di transaksi
+    // pemanggil, jadi harus dijalankan di dalam transaksi dokumen yang bersangkutan
+
+    // Method untuk mengurangi stok on-hand; gagal jika stok tersedia tidak cukup
+    public StockLevel deduct(Long productId, int quantity) {
+        return execute(StockCommand.Type.DEDUCT, productId, quantity);
+    }
+
+    // Method untuk menambah stok on-hand (quantity negatif untuk membatalkan penambahan)
+    public StockLevel restock(Long productId, int quantity) {
+        return execute(StockCommand.Type.RESTOCK, productId, quantity);
+    }
+
+    // Method untuk menambah / mengurangi stok banyak produk sekaligus. Semua perintah dikirim dulu
+    // baru ditunggu, sehingga writer memprosesnya dalam batch yang sama. Jika ada yang gagal,
+    // perintah yang sudah berhasil dibatalkan lagi
+    public void restockAll(Map<Long, Integer> quantities) {
+        Map<Long, CompletableFuture<StockLevel>> results = new LinkedHashMap<>();
+
+        try {
+            quantities.forEach((productId, quantity) -> results.put(
+                    productId, submit(StockCommand.Type.RESTOCK, productId, quantity)));
+
+            CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new))
+                    .get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+
+            List<Applied> applied = new ArrayList<>(quantities.size());
+            quantities.forEach((productId, quantity) ->
+                    applied.add(new Applied(StockCommand.Type.RESTOCK, productId, quantity)));
+            record(applied);
+        } catch (RuntimeException | ExecutionException | TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+
+            results.forEach((productId, result) -> result.thenRunAsync(
+                    () -> undo(StockCommand.Type.RESTOCK, productId, quantities.get(productId))));
+
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (cause instanceof IllegalStateException failure) {
+                throw failure;
+            }
+            throw new IllegalStateException("Stock engine tidak merespons");
+        }
+    }
+
+    // Method untuk menahan stok tanpa mengurangi on-hand
+    public StockLevel reserve(Long productId, int quantity) {
+        return execute(StockCommand.Type.RESERVE, productId, quantity);
+    }
+
+    // Method untuk melepas stok yang ditahan
+    public StockLevel release(Long productId, int quantity) {
+        return execute(StockCommand.Type.RELEASE, productId, quantity);
+    }
+
+    // Method untuk menahan stok tanpa validasi (mengembalikan tahanan yang dilepas)
+    public StockLevel hold(Long productId, int quantity) {
+        return execute(StockCommand.Type.HOLD, productId, quantity);
+    }
+
+    // Method untuk memulihkan tahanan reservasi yang masih aktif di database saat engine mulai
+    // dipakai. Tidak ikut transaksi pemanggil: rollback transaksi itu tidak melepas tahanan ini
+    public void restoreHolds(Map<Long, Integer> quantities) {
+        Map<Long, CompletableFuture<StockLevel>> results = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> results.put(
+                productId, submit(StockCommand.Type.HOLD, productId, quantity)));
+
+        try {
+            CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new))
+                    .get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Gagal memulihkan reservasi stok", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perintah stok dibatalkan");
+        }
+    }
+
+    // Method untuk mengurangi on-hand dari stok yang sudah ditahan oleh reservasi
+    public StockLevel commit(Long productId, int quantity) {
+        return execute(StockCommand.Type.COMMIT, productId, quantity);
+    }
+
+    // Posisi stok terakhir yang diketahui engine, null jika produk belum pernah disentuh
+    public StockLevel getLevel(Long productId) {
+        return levels.get(productId);
+    }
+
+    private CompletableFuture<StockLevel> submit(StockCommand.Type type, Long productId, int quantity) {
+        if (!enabled) {
+            throw new IllegalStateException("Stock engine tidak aktif");
+        }
+
+        CompletableFuture<StockLevel> result = new CompletableFuture<>();
+        Writer writer = writers[shardOf(productId)];
+
+        try {
+            if (!writer.queue.offer(new StockCommand(type, productId, quantity, result),
+                    ackTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Antrian stok penuh");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perintah stok dibatalkan");
+        }
+
+        return result;
+    }
+
+    private StockLevel execute(StockCommand.Type type, Long productId, int quantity) {
+        CompletableFuture<StockLevel> result = submit(type, productId, quantity);
+        StockLevel level;
+
+        try {
+            level = result.get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            // Pemanggil sudah menganggap perintah gagal; jika writer tetap menjalankannya, batalkan
+            result.thenRunAsync(() -> undo(type, productId, quantity));
+            throw new IllegalStateException("Stock engine tidak merespons");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.thenRunAsync(() -> undo(type, productId, quantity));
+            throw new IllegalStateException("Perintah stok dibatalkan");
+        }
+
+        record(List.of(new Applied(type, productId, quantity)));
+        return level;
+    }
+
+    // Catat perintah yang sudah di-ack ke transaksi pemanggil: delta on-hand ditulis ke journal
+    // di transaksi itu, dan perubahan di memori dibatalkan lagi jika transaksi itu di-rollback
+    private void record(List<Applied> applied) {
+        TransactionCommands tx = currentTransaction();
+        if (tx != null) {
+            tx.applied.addAll(applied);
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        Set<Writer> touched = new HashSet<>();
+
+        for (Applied a : applied) {
+            int delta = a.onHandDelta();
+            if (delta != 0) {
+                int shard = shardOf(a.productId());
+                rows.add(new Object[] { shard, a.productId(), delta, 0 });
+                touched.add(writers[shard]);
+            }
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            journal.append(rows);
+        } catch (RuntimeException e) {
+            // Tanpa transaksi tidak ada rollback yang membatalkan perubahan di memori
+            if (tx == null) {
+                applied.forEach(a -> undo(a.type(), a.productId(), a.quantity()));
+            }
+            throw e;
+        }
+
+        if (tx != null) {
+            tx.touched.addAll(touched);
+        } else {
+            touched.forEach(writer -> writer.dirty = true);
+        }
+    }
+
+    // Method untuk mencatat pengurangan quantity yang dinilai harga pokok (penjualan) ke journal
+    // di transaksi pemanggil. Ditulis ke product.costed_quantity oleh writer bersama delta stok,
+    // jadi transaksi penjualan tidak mengunci baris produk dan delta yang gagal ditulis dicoba lagi
+    public void issueCost(Map<Long, Integer> quantities) {
+        if (!enabled) {
+            throw new IllegalStateException("Stock engine tidak aktif");
+        }
+
+        List<Object[]> rows = new ArrayList<>(quantities.size());
+        Set<Writer> touched = new HashSet<>();
+
+        quantities.forEach((productId, quantity) -> {
+            int shard = shardOf(productId);
+            rows.add(new Object[] { shard, productId, 0, -quantity });
+            touched.add(writers[shard]);
+        });
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        journal.append(rows);
+
+        TransactionCommands tx = currentTransaction();
+        if (tx != null) {
+            tx.touched.addAll(touched);
+        } else {
+            touched.forEach(writer -> writer.dirty = true);
+        }
+    }
+
+    private TransactionCommands currentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionCommands tx) {
+                return tx;
+            }
+        }
+
+        TransactionCommands tx = new TransactionCommands();
+        TransactionSynchronizationManager.registerSynchronization(tx);
+        return tx;
+    }
+
+    private int shardOf(long productId) {
+        return (int) Math.floorMod(productId, (long) writerCount);
+    }
+
+    private void undo(StockCommand.Type type, Long productId, int quantity) {
+        switch (type) {
+            case DEDUCT -> submit(StockCommand.Type.RESTOCK, productId, quantity);
+            case RESTOCK -> submit(StockCommand.Type.RESTOCK, productId, -quantity);
+            case RESERVE, HOLD -> submit(StockCommand.Type.RELEASE, productId, quantity);
+            case RELEASE -> submit(StockCommand.Type.HOLD, productId, quantity);
+            case COMMIT -> {
+                submit(StockCommand.Type.RESTOCK, productId, quantity);
+                submit(StockCommand.Type.HOLD, productId, quantity);
+            }
+        }
+    }
+
+    // Terapkan baris journal yang sudah commit tetapi belum sempat ditulis ke product sebelum
+    // aplikasi berhenti. Baris dari transaksi yang tidak pernah commit tidak ada di tabel
+    private void recover() {
+        int total = 0;
+        int applied;
+
+        do {
+            applied = applyJournal(null);
+            total += applied;
+        } while (applied == flushBatch);
+
+        if (total > 0) {
+            log.warn("Replay {} baris journal stok", total);
+        }
+    }
+
+    // Satu batch journal: tambahkan delta per produk ke current_stock dan costed_quantity lalu hapus barisnya,
+    // dalam satu transaksi. Mengembalikan jumlah baris journal yang diterapkan
+    int applyJournal(Integer shard) {
+        return new TransactionTemplate(transactionManager).execute(tx -> {
+            StockJournal.Batch batch = journal.read(shard, flushBatch);
+
+            if (batch.ids().isEmpty()) {
+                return 0;
+            }
+
+            long changeSeq = changeSequence.next();
+            List<Object[]> rows = new ArrayList<>(batch.deltas().size());
+            batch.deltas().forEach((productId, delta) -> {
+                if (delta[0] != 0 || delta[1] != 0) {
+                    rows.add(new Object[] { delta[0], delta[1], changeSeq, productId });
+                }
+            });
+
+            jdbcTemplate.batchUpdate(
+                    "UPDATE product SET current_stock = current_stock + ?, "
+                            + "costed_quantity = costed_quantity + ?, change_seq = ? WHERE id = ?",
+                    rows);
+            journal.delete(batch.ids());
+
+            entityCacheService.evictAfterCommit(Product.class, batch.deltas().keySet());
+            return batch.ids().size();
+        });
+    }
+
+    // Perintah yang di-ack di dalam satu transaksi
+    private record Applied(StockCommand.Type type, Long productId, int quantity) {
+
+        int onHandDelta() {
+            return switch (type) {
+                case DEDUCT, COMMIT -> -quantity;
+                case RESTOCK -> quantity;
+                default -> 0;
+            };
+        }
+    }
+
+    // Didaftarkan sekali per transaksi: setelah commit writer yang journalnya bertambah diberi tahu,
+    // setelah rollback semua perintah transaksi ini dibatalkan di memori (urutan terbalik)
+    private final class TransactionCommands implements TransactionSynchronization {
+
+        private final List<Applied> applied = new ArrayList<>();
+        private final Set<Writer> touched = new HashSet<>();
+
+        @Override
+        public void afterCommit() {
+            touched.forEach(writer -> writer.dirty = true);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_ROLLED_BACK) {
+                return;
+            }
+
+            for (int i = applied.size() - 1; i >= 0; i--) {
+                Applied a = applied.get(i);
+                try {
+                    undo(a.type(), a.productId(), a.quantity());
+                } catch (RuntimeException e) {
+                    log.error("Gagal membatalkan perintah stok {} produk {}", a.type(), a.productId(), e);
+                }
+            }
+        }
+    }
+
+    private final class Writer implements Runnable {
+
+        private final int shard;
+        private final ArrayBlockingQueue<StockCommand> queue;
+        private final Thread thread;
+
+        // Hanya disentuh oleh thread writer ini
+        private final Map<Long, int[]> cells = new HashMap<>();
+        private long lastFlush = System.nanoTime();
+
+        private volatile boolean running = true;
+
+        // Ada baris journal yang sudah commit dan belum ditulis ke product
+        private volatile boolean dirty;
+
+        Writer(int shard) {
+            this.shard = shard;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, "stock-writer-" + shard);
+        }
+
+        @Override
+        public void run() {
+            List<StockCommand> batch = new ArrayList<>(maxBatch);
+
+            while (running || !queue.isEmpty()) {
+                try {
+                    StockCommand first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, maxBatch - 1);
+                        process(batch);
+                        batch.clear();
+                    }
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+
+                if (dirty && (!running || System.nanoTime() - lastFlush
+                        >= TimeUnit.MILLISECONDS.toNanos(flushIntervalMs))) {
+                    flush();
+                }
+            }
+        }
+
+        private void process(List<StockCommand> batch) {
+            for (StockCommand command : batch) {
+                try {
+                    int[] cell = cell(command.productId());
+                    apply(command, cell);
+                    command.result().complete(publish(command.productId(), cell));
+                } catch (RuntimeException e) {
+                    command.result().completeExceptionally(e);
+                }
+            }
+        }
+
+        private void apply(StockCommand command, int[] cell) {
+            int quantity = command.quantity();
+
+            switch (command.type()) {
+                case RESERVE:
+                    if (cell[0] - cell[1] < quantity) {
+                        throw new IllegalStateException("Stok tidak cukup");
+                    }
+                    cell[1] += quantity;
+                    break;
+                case HOLD:
+                    cell[1] += quantity;
+                    break;
+                case RELEASE:
+                    cell[1] = Math.max(0, cell[1] - quantity);
+                    break;
+                case DEDUCT:
+                    if (cell[0] - cell[1] < quantity) {
+                        throw new IllegalStateException("Stok tidak cukup");
+                    }
+                    cell[0] -= quantity;
+                    break;
+                case COMMIT:
+                    if (cell[0] < quantity) {
+                        throw new IllegalStateException("Stok tidak cukup");
+                    }
+                    cell[1] = Math.max(0, cell[1] - quantity);
+                    cell[0] -= quantity;
+                    break;
+                case RESTOCK:
+                    cell[0] += quantity;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Perintah stok tidak dikenal");
+            }
+        }
+
+        private int[] cell(long productId) {
+            int[] cell = cells.get(productId);
+            if (cell != null) {
+                return cell;
+            }
+
+            List<Integer> stock = jdbcTemplate.queryForList(
+                    "SELECT current_stock FROM product WHERE id = ?",
+                    Integer.class,
+                    productId);
+
+            if (stock.isEmpty()) {
+                throw new IllegalArgumentException("Produk tidak ditemukan");
+            }
+
+            cell = new int[] { stock.get(0), 0 };
+            cells.put(productId, cell);
+            return cell;
+        }
+
+        private StockLevel publish(long productId, int[] cell) {
+            StockLevel level = new StockLevel(cell[0], cell[1]);
+            levels.put(productId, level);
+            return level;
+        }
+
+        private void flush() {
+            dirty = false;
+
+            try {
+                while (applyJournal(shard) == flushBatch) {
+                    // journal masih berisi baris berikutnya
+                }
+            } catch (Exception e) {
+                // baris tetap di journal, dicoba lagi pada flush berikutnya
+                dirty = true;
+                log.error("Flush stok shard {} gagal", shard, e);
+            }
+            lastFlush = System.nanoTime();
+        }
+    }
+}
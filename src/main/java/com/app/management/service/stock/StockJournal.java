@@ -0,0 +1,57 @@
+package com.app.management.service.stock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Akses tabel stock_journal: satu baris "shard productId delta costedDelta" untuk setiap perubahan
+// on-hand atau quantity yang dinilai. Baris ditulis di transaksi pemanggil engine, dan dihapus oleh
+// writer di transaksi yang sama dengan update product.
+class StockJournal {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    StockJournal(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Tulis baris { shard, productId, delta, costedDelta } di transaksi yang sedang berjalan
+    void append(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO stock_journal (shard, product_id, delta, costed_delta) VALUES (?, ?, ?, ?)",
+                rows);
+    }
+
+    // Baca batch baris tertua untuk satu shard (atau semua shard jika null), dijumlahkan per produk
+    // menjadi { delta on-hand, delta quantity dinilai }
+    Batch read(Integer shard, int limit) {
+        List<Long> ids = new ArrayList<>();
+        Map<Long, int[]> deltas = new LinkedHashMap<>();
+
+        String sql = "SELECT id, product_id, delta, costed_delta FROM stock_journal "
+                + (shard == null ? "" : "WHERE shard = ? ")
+                + "ORDER BY id LIMIT ?";
+        Object[] args = shard == null ? new Object[] { limit } : new Object[] { shard, limit };
+
+        jdbcTemplate.query(sql, rs -> {
+            ids.add(rs.getLong(1));
+            int[] sum = deltas.computeIfAbsent(rs.getLong(2), id -> new int[2]);
+            sum[0] += rs.getInt(3);
+            sum[1] += rs.getInt(4);
+        }, args);
+
+        return new Batch(ids, deltas);
+    }
+
+    void delete(List<Long> ids) {
+        jdbcTemplate.batchUpdate(
+                "DELETE FROM stock_journal WHERE id = ?",
+                ids.stream().map(id -> new Object[] { id }).toList());
+    }
+
+    record Batch(List<Long> ids, Map<Long, int[]> deltas) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.app.management.service.stock;
+
+// Posisi stok satu produk menurut stock engine
+public record StockLevel(int onHand, int reserved) {
+
+    public int available() {
+        return onHand - reserved;
+    }
+}
@@ -0,0 +1,225 @@
+/* ================= DRAFT INVOICE ================= */
+
+// Setiap perubahan dikirim sebagai request JSON kecil ke /sales/draft/{id};
+// server hanya mengembalikan baris yang berubah dan total terbaru
+
+let draftId = null;
+
+function formatCurrency(amount) {
+    if (!amount) amount = 0;
+    return 'Rp ' + Number(amount).toLocaleString('id-ID');
+}
+
+function showError(message) {
+    const box = document.getElementById('draftError');
+    box.querySelector('span').textContent = message;
+    box.classList.toggle('hidden', !message);
+}
+
+async function callDraft(method, path, body) {
+    const response = await fetch(`/sales/draft${path}`, {
+        method,
+        headers: body ? { 'Content-Type': 'application/json' } : {},
+        body: body ? JSON.stringify(body) : undefined
+    });
+
+    if (response.status === 401) {
+        window.location.href = '/access/login';
+        return null;
+    }
+
+    const data = await response.json();
+    if (!response.ok) {
+        showError(data.error || 'Gagal memproses draft');
+        return null;
+    }
+
+    showError('');
+    return data;
+}
+
+/* ================= RENDER ================= */
+
+function renderTotals(totals) {
+    document.getElementById('lineCount').textContent = totals.lineCount;
+    document.getElementById('draftSubtotal').textContent = formatCurrency(totals.subtotal);
+    document.getElementById('draftVat').textContent = formatCurrency(totals.vat);
+    document.getElementById('draftTotal').textContent = formatCurrency(totals.total);
+}
+
+function renderLine(line) {
+    const tbody = document.getElementById('draftLines');
+    let row = tbody.querySelector(`tr[data-product-id="${line.productId}"]`);
+
+    if (!row) {
+        row = document.createElement('tr');
+        row.dataset.productId = line.productId;
+        row.innerHTML = `
+            <td class="code"></td>
+            <td class="name"></td>
+            <td class="price"></td>
+            <td><input type="number" min="1" onchange="updateLine(this)" /></td>
+            <td class="subtotal"></td>
+            <td>
+                <button type="button" class="btn btn-danger btn-small" onclick="removeLine(this)">✕</button>
+            </td>
+        `;
+        tbody.appendChild(row);
+    }
+
+    row.querySelector('.code').textContent = line.productCode;
+    row.querySelector('.name').textContent = line.productName;
+    row.querySelector('.price').textContent = formatCurrency(line.unitPrice);
+    row.querySelector('input').value = line.quantity;
+    row.querySelector('.subtotal').textContent = formatCurrency(line.subtotal);
+}
+
+function applyResult(result) {
+    if (!result) {
+        return false;
+    }
+
+    if (result.line) {
+        renderLine(result.line);
+    } else {
+        document.querySelector(`#draftLines tr[data-product-id="${result.productId}"]`)?.remove();
+    }
+
+    renderTotals(result.totals);
+    return true;
+}
+
+function renderDraft(draft) {
+    draftId = draft.id;
+    document.getElementById('customerName').value = draft.customerName || '';
+    document.getElementById('invoiceNumber').value = draft.invoiceNumber || '';
+    document.getElementById('vatPercentage').value = draft.vatPercentage || '';
+    document.getElementById('draftLines').innerHTML = '';
+    draft.lines.forEach(renderLine);
+    renderTotals(draft.totals);
+}
+
+/* ================= AKSI ================= */
+
+async function saveHeader() {
+    const vat = document.getElementById('vatPercentage').value;
+    const totals = await callDraft('PUT', `/${draftId}`, {
+        customerName: document.getElementById('customerName').value,
+        invoiceNumber: document.getElementById('invoiceNumber').value,
+        vatPercentage: vat === '' ? null : vat
+    });
+
+    if (totals) {
+        renderTotals(totals);
+    }
+}
+
+async function addSelectedProduct() {
+    const select = document.getElementById('productSelect');
+    const qtyInput = document.getElementById('productQuantity');
+
+    if (!select.value) {
+        showError('Pilih produk terlebih dahulu');
+        return;
+    }
+
+    const result = await callDraft('POST', `/${draftId}/lines`, {
+        productId: select.value,
+        quantity: parseInt(qtyInput.value) || 0
+    });
+
+    if (applyResult(result)) {
+        select.value = '';
+        qtyInput.value = 1;
+    }
+}
+
+async function onScan(event) {
+    if (event.key !== 'Enter') {
+        return;
+    }
+    event.preventDefault();
+
+    const input = event.target;
+    const code = input.value.trim();
+    document.getElementById('scanMessage').textContent = '';
+
+    if (!code) {
+        return;
+    }
+
+    const result = await callDraft('POST', `/${draftId}/lines`, { productCode: code, quantity: 1 });
+
+    if (applyResult(result)) {
+        input.value = '';
+    } else {
+        document.getElementById('scanMessage').textContent = `Kode produk gagal ditambahkan: ${code}`;
+        input.select();
+    }
+}
+
+async function updateLine(input) {
+    const productId = input.closest('tr').dataset.productId;
+    const result = await callDraft('PUT', `/${draftId}/lines/${productId}`, {
+        quantity: parseInt(input.value) || 0
+    });
+
+    if (!applyResult(result)) {
+        const draft = await callDraft('GET', `/${draftId}`);
+        if (draft) {
+            renderDraft(draft);
+        }
+    }
+}
+
+async function removeLine(button) {
+    const productId = button.closest('tr').dataset.productId;
+    applyResult(await callDraft('DELETE', `/${draftId}/lines/${productId}`));
+}
+
+async function finalizeDraft() {
+    const role = document.getElementById('draftPage').dataset.role;
+    const result = await callDraft('POST', `/${draftId}/finalize`);
+
+    if (result) {
+        window.location.href = `/sales/view/${result.invoiceId}?role=${encodeURIComponent(role)}`;
+    }
+}
+
+async function discardDraft() {
+    if (!confirm('Yakin menghapus draft ini?')) {
+        return;
+    }
+
+    const role = document.getElementById('draftPage').dataset.role;
+    if (await callDraft('DELETE', `/${draftId}`)) {
+        window.location.href = `/sales/list?role=${encodeURIComponent(role)}`;
+    }
+}
+
+/* ================= INIT ================= */
+
+// Draft dibuka dari ?draft=..., selain itu dibuat draft baru dan id-nya dicatat di URL
+document.addEventListener('DOMContentLoaded', async () => {
+    const params = new URLSearchParams(window.location.search);
+    let draft = null;
+
+    if (params.get('draft')) {
+        draft = await callDraft('GET', `/${params.get('draft')}`);
+    }
+
+    if (!draft) {
+        draft = await callDraft('POST', '');
+        if (!draft) {
+            return;
+        }
+        params.set('draft', draft.id);
+        history.replaceState(null, '', `${window.location.pathname}?${params}`);
+    }
+
+    renderDraft(draft);
+
+    document.querySelectorAll('.draft-header')
+        .forEach(input => input.addEventListener('change', saveHeader));
+    document.getElementById('scanInput').addEventListener('keydown', onScan);
+});
@@ -1,6 +1,9 @@
 let rowIndex = 0;
 
-function addRow() {
+// harga & qty terakhir per productId untuk supplier yang sedang dipilih
+let priceCatalog = {};
+
+function addRow(productId) {
     const container = document.getElementById('items');
     const template = document.getElementById('productTemplate');
 
@@ -9,6 +12,7 @@ function addRow() {
 
     // PRODUCT
     const productSelect = template.cloneNode(true);
+    productSelect.removeAttribute('id');
     productSelect.style.display = 'block';
     productSelect.name = `purchaseDetails[${rowIndex}].product.id`;
     productSelect.required = true;
@@ -29,6 +33,11 @@ function addRow() {
     priceInput.name = `purchaseDetails[${rowIndex}].unitPurchasePrice`;
     priceInput.required = true;
 
+    // nilai yang diketik staff tidak ditimpa prefill
+    qtyInput.addEventListener('input', () => delete qtyInput.dataset.prefilled);
+    priceInput.addEventListener('input', () => delete priceInput.dataset.prefilled);
+    productSelect.addEventListener('change', () => prefillRow(row));
+
     // REMOVE BUTTON
     const removeBtn = document.createElement('button');
     removeBtn.type = 'button';
@@ -38,10 +47,70 @@ function addRow() {
     row.append(productSelect, qtyInput, priceInput, removeBtn);
     container.appendChild(row);
 
+    if (productId) {
+        productSelect.value = productId;
+        prefillRow(row);
+    }
+
     rowIndex++;
 }
 
+// isi qty & harga dari katalog jika masih kosong atau sebelumnya hasil prefill
+function prefillRow(row) {
+    const [productSelect, qtyInput, priceInput] = row.querySelectorAll('select, input');
+    const hint = priceCatalog[productSelect.value];
+
+    [[qtyInput, hint && hint.quantity], [priceInput, hint && hint.unitPurchasePrice]]
+        .forEach(([input, value]) => {
+            if (input.value !== '' && !input.dataset.prefilled) {
+                return;
+            }
+            input.value = value != null ? value : '';
+            if (value != null) {
+                input.dataset.prefilled = 'true';
+            } else {
+                delete input.dataset.prefilled;
+            }
+        });
+}
+
+async function loadPriceCatalog(supplierId) {
+    priceCatalog = {};
+    if (!supplierId) {
+        return;
+    }
+
+    const response = await fetch(`/purchase/price-catalog?supplierId=${encodeURIComponent(supplierId)}`);
+    if (response.ok) {
+        priceCatalog = await response.json();
+    }
+}
+
+async function onSupplierChange(event) {
+    await loadPriceCatalog(event.target.value);
+
+    const rows = Array.from(document.querySelectorAll('#items .detail-item'));
+    const untouched = rows.every(row => !row.querySelector('select').value);
+
+    // form belum diisi: langsung siapkan satu baris per produk yang pernah dibeli dari supplier ini
+    const template = document.getElementById('productTemplate');
+    const productIds = Object.keys(priceCatalog)
+        .filter(id => template.querySelector(`option[value="${id}"]`));
+    if (untouched && productIds.length > 0) {
+        rows.forEach(row => row.remove());
+        productIds.forEach(id => addRow(id));
+        return;
+    }
+
+    rows.forEach(prefillRow);
+}
+
 // otomatis 1 baris saat load
 document.addEventListener('DOMContentLoaded', () => {
     addRow();
+
+    const supplierSelect = document.getElementById('supplierSelect');
+    if (supplierSelect) {
+        supplierSelect.addEventListener('change', onSupplierChange);
+    }
 });
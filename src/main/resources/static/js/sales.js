@@ -114,6 +114,78 @@ function removeRow(button) {
     }
 }
 
+/* ================= SCAN KODE PRODUK ================= */
+
+// Kode hasil scan dicari lewat /api/products/by-code; produk yang sudah ada di daftar
+// cukup ditambah quantity-nya, selain itu dibuat baris baru
+async function onScan(event) {
+    if (event.key !== 'Enter') {
+        return;
+    }
+    event.preventDefault();
+
+    const input = event.target;
+    const message = document.getElementById('scanMessage');
+    const code = input.value.trim();
+    message.textContent = '';
+
+    if (!code) {
+        return;
+    }
+
+    const response = await fetch(`/api/products/by-code/${encodeURIComponent(code)}`);
+    if (!response.ok) {
+        message.textContent = response.status === 404
+            ? `Kode produk tidak ditemukan: ${code}`
+            : 'Gagal mencari kode produk';
+        input.select();
+        return;
+    }
+
+    const product = await response.json();
+    const template = document.getElementById('productTemplate');
+    if (!template.querySelector(`option[value="${product.id}"]`)) {
+        message.textContent = `Produk tidak tersedia: ${product.productName}`;
+        input.select();
+        return;
+    }
+
+    const rows = Array.from(document.querySelectorAll('#items .item-row'));
+    let row = rows.find(r => r.querySelector('select').value === String(product.id));
+
+    if (!row) {
+        row = rows.find(r => !r.querySelector('select').value);
+    }
+
+    if (!row) {
+        addItemRow();
+        row = document.querySelector('#items .item-row:last-child');
+        if (!row || row.querySelector('select').value) {
+            input.select();
+            return;
+        }
+    }
+
+    const select = row.querySelector('select');
+    const qtyInput = row.querySelector('input[type="number"]');
+
+    if (select.value === String(product.id)) {
+        qtyInput.value = (parseInt(qtyInput.value) || 0) + 1;
+    } else {
+        select.value = product.id;
+        qtyInput.value = 1;
+    }
+
+    input.value = '';
+}
+
+document.addEventListener('DOMContentLoaded', () => {
+    const scanInput = document.getElementById('scanInput');
+    if (scanInput) {
+        scanInput.addEventListener('keydown', onScan);
+    }
+});
+
 /* ================= REINDEX (SPRING MVC SAFE) ================= */
 
 function reindexRows() {
@@ -0,0 +1,89 @@
+package com.app.management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChangeSequenceTests {
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void watermarkStaysBelowUncommittedSequence() {
+        tx.executeWithoutResult(status -> {
+            long seq = changeSequence.next();
+            assertThat(changeSequence.watermark()).isEqualTo(seq - 1);
+        });
+
+        long committed = changeSequence.watermark();
+        assertThat(changeSequence.next()).isEqualTo(committed + 1);
+    }
+
+    @Test
+    void rolledBackSequenceNoLongerHoldsWatermark() {
+        long seq = tx.execute(status -> {
+            status.setRollbackOnly();
+            return changeSequence.next();
+        });
+
+        assertThat(changeSequence.watermark()).isGreaterThanOrEqualTo(seq);
+    }
+
+    @Test
+    void laterCommitDoesNotMoveWatermarkPastOlderOpenTransaction() throws Exception {
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicLong olderSeq = new AtomicLong();
+
+        CompletableFuture<Void> older = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+            olderSeq.set(changeSequence.next());
+            taken.countDown();
+            await(finish);
+        }));
+
+        assertThat(taken.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long newer = tx.execute(status -> changeSequence.next());
+        assertThat(newer).isGreaterThan(olderSeq.get());
+
+        // Transaksi yang lebih baru sudah commit, tetapi nomor yang lebih lama masih terbuka
+        assertThat(changeSequence.watermark()).isEqualTo(olderSeq.get() - 1);
+
+        finish.countDown();
+        older.get(5, TimeUnit.SECONDS);
+        assertThat(changeSequence.watermark()).isGreaterThanOrEqualTo(newer);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
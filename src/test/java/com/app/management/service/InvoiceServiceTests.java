@@ -0,0 +1,129 @@
+package com.app.management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.model.sales.SalesInvoice;
+import com.app.management.repository.ProductRepository;
+
+@SpringBootTest(properties = "app.sales.bulk-complete-max=3")
+@ActiveProfiles("test")
+class InvoiceServiceTests {
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkCompleteRejectsInvalidInvoicesWithoutFailingTheOthers() {
+        Long plenty = createProduct(10);
+        Long scarce = createProduct(10);
+
+        SalesInvoice ok = createInvoice(plenty, 4);
+        SalesInvoice shortOfStock = createInvoice(scarce, 4);
+        SalesInvoice alreadyCompleted = createInvoice(plenty, 1);
+        invoiceService.completeSales(alreadyCompleted.getId());
+
+        // Stok dikoreksi (mis. stock opname) di bawah tahanan invoice yang masih terbuka
+        Product product = productRepository.findById(scarce).orElseThrow();
+        product.setCurrentStock(2);
+        productRepository.save(product);
+
+        InvoiceService.BulkCompleteResult result = invoiceService.completeSalesBulk(
+                List.of(ok.getId(), shortOfStock.getId(), alreadyCompleted.getId()));
+
+        assertThat(result.completed()).containsExactly(ok.getInvoiceNumber());
+        assertThat(result.rejected())
+                .containsOnlyKeys(shortOfStock.getInvoiceNumber(), alreadyCompleted.getInvoiceNumber());
+        assertThat(result.rejected().get(shortOfStock.getInvoiceNumber())).startsWith("Stok tidak cukup");
+
+        assertThat(status(ok)).isEqualTo("COMPLETED");
+        assertThat(status(shortOfStock)).isEqualTo("CREATED");
+        assertThat(currentStock(plenty)).isEqualTo(5);
+        assertThat(currentStock(scarce)).isEqualTo(2);
+
+        // Tahanan invoice yang selesai dilepas, tahanan invoice yang ditolak tetap ada
+        assertThat(stockReservationService.getReservedQuantity(plenty)).isZero();
+        assertThat(stockReservationService.getReservedQuantity(scarce)).isEqualTo(4);
+    }
+
+    @Test
+    void bulkCompleteReportsMissingInvoices() {
+        SalesInvoice ok = createInvoice(createProduct(10), 2);
+
+        InvoiceService.BulkCompleteResult result = invoiceService.completeSalesBulk(
+                List.of(ok.getId(), -1L));
+
+        assertThat(result.completed()).containsExactly(ok.getInvoiceNumber());
+        assertThat(result.rejected()).containsEntry("#-1", "Invoice tidak ditemukan");
+    }
+
+    @Test
+    void bulkCompleteRejectsEmptyAndOversizedSelections() {
+        assertThatThrownBy(() -> invoiceService.completeSalesBulk(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> invoiceService.completeSalesBulk(List.of(1L, 2L, 3L, 4L)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Maksimal 3 invoice sekaligus");
+
+        // Id duplikat dihitung sekali
+        assertThat(invoiceService.completeSalesBulk(Collections.nCopies(5, -1L)).rejected())
+                .containsOnlyKeys("#-1");
+    }
+
+    private Long createProduct(int stock) {
+        Product product = new Product();
+        product.setProductCode("BLK-" + UUID.randomUUID());
+        product.setProductName("Produk massal");
+        product.setCurrentStock(stock);
+        product.setStandardSellingPrice(new BigDecimal("15000"));
+        product.setLastPurchasePrice(new BigDecimal("10000"));
+        product.setStatus(ProductStatus.ACTIVE);
+        return productRepository.save(product).getId();
+    }
+
+    private SalesInvoice createInvoice(Long productId, int quantity) {
+        InvoiceDetails detail = new InvoiceDetails();
+        detail.setProduct(productRepository.findById(productId).orElseThrow());
+        detail.setQuantity(quantity);
+
+        SalesInvoice invoice = new SalesInvoice();
+        invoice.setInvoiceNumber("INV-" + UUID.randomUUID());
+        invoice.setCustomerName("Pelanggan Massal");
+        invoice.addInvoiceDetail(detail);
+
+        return invoiceService.createInvoice(invoice);
+    }
+
+    private String status(SalesInvoice invoice) {
+        return jdbcTemplate.queryForObject(
+                "SELECT sales_status FROM sales_invoice WHERE id = ?", String.class, invoice.getId());
+    }
+
+    private int currentStock(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT current_stock FROM product WHERE id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,151 @@
+package com.app.management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.management.model.Supplier;
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.model.purchase.Purchase;
+import com.app.management.model.purchase.PurchaseDetails;
+import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.model.sales.SalesInvoice;
+import com.app.management.repository.ProductRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductCostServiceTests {
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Supplier supplier;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        Supplier s = new Supplier();
+        s.setSupplierName("PT Harga Pokok");
+        s.setTelephoneNumber("0812345678");
+        s.setAddress("Jakarta");
+        supplier = supplierService.saveSupplier(s);
+
+        Product product = new Product();
+        product.setProductCode("WAC-" + UUID.randomUUID());
+        product.setProductName("Produk harga pokok");
+        product.setCurrentStock(10);
+        product.setStandardSellingPrice(new BigDecimal("20000"));
+        product.setLastPurchasePrice(new BigDecimal("10000"));
+        product.setStatus(ProductStatus.ACTIVE);
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    void firstReceiptStartsFromLastPurchasePriceAndCurrentStock() {
+        receive(10, "13000");
+
+        // (10000 * 10 + 13000 * 10) / 20
+        assertCost("11500.0000", 20);
+        assertThat(currentStock()).isEqualTo(20);
+    }
+
+    @Test
+    void saleIssuesAtAverageCostWithoutChangingIt() {
+        receive(10, "13000");
+
+        SalesInvoice invoice = sell(5);
+
+        assertCost("11500.0000", 15);
+        assertThat(currentStock()).isEqualTo(15);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT unit_cost FROM invoice_details WHERE invoice_id = ?", BigDecimal.class, invoice.getId()))
+                .isEqualByComparingTo("11500");
+    }
+
+    @Test
+    void laterReceiptIsWeightedByCostedQuantityAndCancelReversesIt() {
+        receive(10, "13000");
+        sell(5);
+
+        Purchase second = receive(5, "15000");
+
+        // (11500 * 15 + 15000 * 5) / 20
+        assertCost("12375.0000", 20);
+
+        purchaseService.cancelPurchase(second.getId());
+
+        // (12375 * 20 - 15000 * 5) / 15
+        assertCost("11500.0000", 15);
+        assertThat(currentStock()).isEqualTo(15);
+    }
+
+    private Purchase receive(int quantity, String unitPrice) {
+        PurchaseDetails detail = new PurchaseDetails();
+        detail.setProduct(productRepository.findById(productId).orElseThrow());
+        detail.setQuantity(quantity);
+        detail.setUnitPurchasePrice(new BigDecimal(unitPrice));
+
+        Purchase purchase = new Purchase();
+        purchase.setSupplier(supplier);
+        purchase.setReferenceNumber("REF-" + UUID.randomUUID());
+        purchase.getPurchaseDetails().add(detail);
+
+        Purchase saved = purchaseService.createPurchase(purchase);
+        purchaseService.completePurchase(saved.getId());
+        return saved;
+    }
+
+    private SalesInvoice sell(int quantity) {
+        InvoiceDetails detail = new InvoiceDetails();
+        detail.setProduct(productRepository.findById(productId).orElseThrow());
+        detail.setQuantity(quantity);
+
+        SalesInvoice invoice = new SalesInvoice();
+        invoice.setInvoiceNumber("INV-" + UUID.randomUUID());
+        invoice.setCustomerName("Pelanggan Harga Pokok");
+        invoice.addInvoiceDetail(detail);
+
+        SalesInvoice saved = invoiceService.createInvoice(invoice);
+        invoiceService.completeSales(saved.getId());
+        return saved;
+    }
+
+    private void assertCost(String averageCost, int costedQuantity) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT average_cost, costed_quantity FROM product WHERE id = ?", productId);
+
+        assertThat((BigDecimal) row.get("average_cost")).isEqualByComparingTo(averageCost);
+        assertThat(((Number) row.get("costed_quantity")).intValue()).isEqualTo(costedQuantity);
+
+        // Cache entity ikut dibuang setelah update JDBC, jadi repository melihat nilai yang sama
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertThat(product.getCostedQuantity()).isEqualTo(costedQuantity);
+    }
+
+    private int currentStock() {
+        return jdbcTemplate.queryForObject("SELECT current_stock FROM product WHERE id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,93 @@
+package com.app.management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.repository.ProductRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReorderServiceTests {
+
+    @Autowired
+    private ReorderService reorderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void lowStockIsOrderedByDaysOfCover() {
+        Long five = createProduct(5);
+        Long one = createProduct(1);
+        Long empty = createProduct(0);
+        Long three = createProduct(3);
+        Long plenty = createProduct(10_000);
+
+        // Kecepatan sama untuk semua produk (10 unit / hari), jadi urutan hanya ditentukan stok
+        reorderService.recordSales(Map.of(five, 140, one, 140, empty, 140, three, 140, plenty, 140));
+
+        assertThat(lowStockIds(List.of(five, one, empty, three, plenty)))
+                .containsExactly(empty, one, three, five);
+    }
+
+    @Test
+    void fasterSellingProductComesFirstAtEqualStock() {
+        Long slow = createProduct(20);
+        Long fast = createProduct(20);
+
+        reorderService.recordSales(Map.of(slow, 70, fast, 280));
+
+        assertThat(lowStockIds(List.of(slow, fast))).containsExactly(fast, slow);
+    }
+
+    @Test
+    void refreshMovesProductWhenStockChanges() {
+        Long first = createProduct(1);
+        Long second = createProduct(6);
+
+        reorderService.recordSales(Map.of(first, 140, second, 140));
+        assertThat(lowStockIds(List.of(first, second))).containsExactly(first, second);
+
+        // Produk pertama di-restock melewati titik pesan ulang, produk kedua habis
+        updateStock(first, 5_000);
+        updateStock(second, 0);
+        reorderService.refreshAfterCommit(List.of(first, second));
+
+        assertThat(lowStockIds(List.of(first, second))).containsExactly(second);
+    }
+
+    private List<Long> lowStockIds(List<Long> productIds) {
+        return reorderService.getLowStock(Integer.MAX_VALUE).stream()
+                .map(ReorderService.LowStockView::productId)
+                .filter(productIds::contains)
+                .toList();
+    }
+
+    private Long createProduct(int stock) {
+        Product product = new Product();
+        product.setProductCode("ROP-" + UUID.randomUUID());
+        product.setProductName("Produk reorder");
+        product.setCurrentStock(stock);
+        product.setStandardSellingPrice(new BigDecimal("15000"));
+        product.setLastPurchasePrice(new BigDecimal("10000"));
+        product.setStatus(ProductStatus.ACTIVE);
+        return productRepository.save(product).getId();
+    }
+
+    private void updateStock(Long productId, int stock) {
+        Product product = productRepository.findById(productId).orElseThrow();
+        product.setCurrentStock(stock);
+        productRepository.save(product);
+    }
+}
@@ -0,0 +1,133 @@
+package com.app.management.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.model.sales.InvoiceDetails;
+import com.app.management.model.sales.SalesInvoice;
+import com.app.management.repository.ProductRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StockReservationServiceTests {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setProductCode("RSV-" + UUID.randomUUID());
+        product.setProductName("Produk reservasi");
+        product.setCurrentStock(10);
+        product.setStandardSellingPrice(new BigDecimal("15000"));
+        product.setLastPurchasePrice(new BigDecimal("10000"));
+        product.setStatus(ProductStatus.ACTIVE);
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    void createdInvoiceHoldsStockAndBlocksOverselling() {
+        SalesInvoice invoice = createInvoice(7);
+
+        assertThat(stockReservationService.getReservedQuantity(productId)).isEqualTo(7);
+        assertThat(available()).isEqualTo(3);
+        assertThat(reservationStatus(invoice)).isEqualTo("ACTIVE");
+
+        assertThatThrownBy(() -> createInvoice(4))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Stok tidak cukup");
+
+        // Invoice yang gagal di-rollback tidak meninggalkan tahanan
+        assertThat(stockReservationService.getReservedQuantity(productId)).isEqualTo(7);
+    }
+
+    @Test
+    void completingInvoiceConsumesItsHoldAndDeductsStock() {
+        SalesInvoice invoice = createInvoice(7);
+
+        invoiceService.completeSales(invoice.getId());
+
+        assertThat(reservationStatus(invoice)).isEqualTo("CONSUMED");
+        assertThat(stockReservationService.getReservedQuantity(productId)).isZero();
+        assertThat(currentStock()).isEqualTo(3);
+        assertThat(available()).isEqualTo(3);
+    }
+
+    @Test
+    void cancellingInvoiceReleasesItsHold() {
+        SalesInvoice invoice = createInvoice(7);
+
+        invoiceService.cancelSales(invoice.getId());
+
+        assertThat(reservationStatus(invoice)).isEqualTo("RELEASED");
+        assertThat(stockReservationService.getReservedQuantity(productId)).isZero();
+        assertThat(currentStock()).isEqualTo(10);
+    }
+
+    @Test
+    void expiredReservationIsReleasedAndStockBecomesAvailable() {
+        SalesInvoice stale = createInvoice(6);
+        SalesInvoice fresh = createInvoice(2);
+
+        jdbcTemplate.update("UPDATE stock_reservation SET expires_at = ? WHERE invoice_id = ?",
+                LocalDateTime.now().minusMinutes(1), stale.getId());
+
+        stockReservationService.expireStaleReservations();
+
+        assertThat(reservationStatus(stale)).isEqualTo("EXPIRED");
+        assertThat(reservationStatus(fresh)).isEqualTo("ACTIVE");
+        assertThat(stockReservationService.getReservedQuantity(productId)).isEqualTo(2);
+        assertThat(available()).isEqualTo(8);
+    }
+
+    private SalesInvoice createInvoice(int quantity) {
+        InvoiceDetails detail = new InvoiceDetails();
+        detail.setProduct(productRepository.findById(productId).orElseThrow());
+        detail.setQuantity(quantity);
+
+        SalesInvoice invoice = new SalesInvoice();
+        invoice.setInvoiceNumber("INV-" + UUID.randomUUID());
+        invoice.setCustomerName("Pelanggan Reservasi");
+        invoice.addInvoiceDetail(detail);
+
+        return invoiceService.createInvoice(invoice);
+    }
+
+    private String reservationStatus(SalesInvoice invoice) {
+        return jdbcTemplate.queryForObject(
+                "SELECT status FROM stock_reservation WHERE invoice_id = ?", String.class, invoice.getId());
+    }
+
+    private int available() {
+        return stockReservationService.getAvailableStock(productRepository.findById(productId).orElseThrow());
+    }
+
+    private int currentStock() {
+        return jdbcTemplate.queryForObject("SELECT current_stock FROM product WHERE id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,174 @@
+package com.app.management.service.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.management.model.product.Product;
+import com.app.management.model.product.ProductStatus;
+import com.app.management.repository.ProductRepository;
+
+@SpringBootTest(properties = {
+        "app.stock-engine.enabled=true",
+        "app.stock-engine.writers=2",
+        "app.stock-engine.flush-interval-ms=20"
+})
+@ActiveProfiles("test")
+class StockEngineTests {
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+
+        Product product = new Product();
+        product.setProductCode("ENG-" + UUID.randomUUID());
+        product.setProductName("Produk engine");
+        product.setCurrentStock(10);
+        product.setStandardSellingPrice(new BigDecimal("15000"));
+        product.setLastPurchasePrice(new BigDecimal("10000"));
+        product.setStatus(ProductStatus.ACTIVE);
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    void committedDeductIsWrittenToProductAndJournalIsDrained() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            StockLevel level = stockEngine.deduct(productId, 3);
+            assertThat(level.onHand()).isEqualTo(7);
+        });
+
+        awaitJournalDrained();
+
+        assertThat(currentStock()).isEqualTo(7);
+        assertThat(stockEngine.getLevel(productId).onHand()).isEqualTo(7);
+    }
+
+    @Test
+    void rolledBackDeductIsUndoneInMemoryAndNeverJournaled() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            stockEngine.deduct(productId, 4);
+            stockEngine.restock(productId, 1);
+            status.setRollbackOnly();
+        });
+
+        awaitLevel(10);
+
+        assertThat(journalRows()).isZero();
+        assertThat(currentStock()).isEqualTo(10);
+    }
+
+    @Test
+    void deductBeyondAvailableStockIsRejected() {
+        tx.executeWithoutResult(status -> stockEngine.reserve(productId, 8));
+
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> stockEngine.deduct(productId, 3)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Stok tidak cukup");
+
+        assertThat(stockEngine.getLevel(productId)).isEqualTo(new StockLevel(10, 8));
+
+        tx.executeWithoutResult(status -> stockEngine.release(productId, 8));
+    }
+
+    @Test
+    void undoInsideCommittedTransactionNetsToZero() throws InterruptedException {
+        tx.executeWithoutResult(status -> {
+            stockEngine.restockAll(Map.of(productId, 5));
+            stockEngine.restock(productId, -5);
+        });
+
+        awaitJournalDrained();
+
+        assertThat(currentStock()).isEqualTo(10);
+        assertThat(stockEngine.getLevel(productId).onHand()).isEqualTo(10);
+    }
+
+    @Test
+    void issuedCostIsWrittenWithTheStockDeltaAfterCommit() throws InterruptedException {
+        jdbcTemplate.update("UPDATE product SET costed_quantity = 10 WHERE id = ?", productId);
+
+        tx.executeWithoutResult(status -> {
+            stockEngine.deduct(productId, 2);
+            stockEngine.issueCost(Map.of(productId, 2));
+        });
+
+        awaitJournalDrained();
+
+        assertThat(currentStock()).isEqualTo(8);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT costed_quantity FROM product WHERE id = ?", Integer.class, productId))
+                .isEqualTo(8);
+    }
+
+    @Test
+    void replayAppliesOnlyCommittedJournalRows() {
+        // Baris dari transaksi yang sudah commit tetapi belum sempat di-flush sebelum aplikasi mati,
+        // dengan nomor shard dari jumlah writer sebelumnya: tidak ada writer yang mengambilnya
+        jdbcTemplate.update(
+                "INSERT INTO stock_journal (shard, product_id, delta, costed_delta) "
+                        + "VALUES (?, ?, ?, 0), (?, ?, ?, 0)",
+                99, productId, -2, 99, productId, 5);
+
+        // Perintah yang di-ack tetapi transaksinya tidak pernah commit tidak meninggalkan baris
+        tx.executeWithoutResult(status -> {
+            stockEngine.deduct(productId, 6);
+            status.setRollbackOnly();
+        });
+
+        assertThat(stockEngine.applyJournal(null)).isEqualTo(2);
+        assertThat(stockEngine.applyJournal(null)).isZero();
+        assertThat(currentStock()).isEqualTo(13);
+    }
+
+    private int currentStock() {
+        return jdbcTemplate.queryForObject(
+                "SELECT current_stock FROM product WHERE id = ?", Integer.class, productId);
+    }
+
+    private int journalRows() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_journal WHERE product_id = ?", Integer.class, productId);
+    }
+
+    private void awaitJournalDrained() throws InterruptedException {
+        for (int i = 0; i < 100 && journalRows() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(journalRows()).isZero();
+    }
+
+    private void awaitLevel(int onHand) throws InterruptedException {
+        for (int i = 0; i < 100 && stockEngine.getLevel(productId).onHand() != onHand; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(stockEngine.getLevel(productId).onHand()).isEqualTo(onHand);
+    }
+}